@@ -0,0 +1,188 @@
+package com.oney.WebRTCModule;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.PeerConnection;
+import org.webrtc.RtcCertificatePem;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Generates DTLS certificates ahead of time, on a background thread, so that
+ * PeerConnections can be given one through {@code RTCConfiguration.certificate}
+ * instead of generating their own while being created, which can take
+ * seconds with RSA keys on older devices.
+ *
+ * A certificate is shared by all the PeerConnections created with the same
+ * key type until it gets close to its expiry, then a new one is generated.
+ * Certificates can optionally be persisted, so later launches don't need to
+ * generate one at all. They are stored, private keys included, in the
+ * application's no backup directory so they never leave the device.
+ *
+ * Must only be created once WebRTC has been initialized, since certificate
+ * generation is implemented natively.
+ */
+class CertificateCache {
+    private static final String TAG = WebRTCModule.TAG;
+
+    private static final String DIRECTORY_NAME = "WebRTCModule.CertificateCache";
+
+    /**
+     * A certificate is renewed once the remaining validity is under this, or
+     * under a quarter of the lifetime for short lived certificates.
+     */
+    private static final long MAX_RENEWAL_MARGIN_MS = 24 * 60 * 60 * 1000L;
+
+    private class Entry {
+        final RtcCertificatePem certificate;
+        final long expiresAt; // System.currentTimeMillis() based
+
+        Entry(RtcCertificatePem certificate, long expiresAt) {
+            this.certificate = certificate;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean needsRenewal() {
+            return System.currentTimeMillis() > expiresAt - renewalMarginMs;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<PeerConnection.KeyType, Entry> entries = new EnumMap<>(PeerConnection.KeyType.class);
+    private final Set<PeerConnection.KeyType> pending = EnumSet.noneOf(PeerConnection.KeyType.class);
+    private final long lifetimeSeconds;
+    private final long renewalMarginMs;
+    @Nullable private final File directory;
+
+    /**
+     * @param lifetimeSeconds the validity of the generated certificates.
+     * @param context if not null, certificates are persisted in the
+     * application's no backup directory.
+     */
+    CertificateCache(long lifetimeSeconds, @Nullable Context context) {
+        this.lifetimeSeconds = lifetimeSeconds;
+        this.renewalMarginMs = Math.min(MAX_RENEWAL_MARGIN_MS, lifetimeSeconds * 1000 / 4);
+        this.directory = context != null ? new File(context.getNoBackupFilesDir(), DIRECTORY_NAME) : null;
+    }
+
+    /**
+     * Returns a certificate of the given key type if one is ready, otherwise
+     * schedules its generation so later calls can return it.
+     */
+    @Nullable
+    synchronized RtcCertificatePem get(PeerConnection.KeyType keyType) {
+        Entry entry = entries.get(keyType);
+        if (entry == null || entry.needsRenewal()) {
+            prepare(keyType);
+        }
+
+        return entry != null && System.currentTimeMillis() < entry.expiresAt ? entry.certificate : null;
+    }
+
+    /**
+     * Loads or generates a certificate of the given key type in the
+     * background, unless one is ready already or on its way.
+     */
+    synchronized void prepare(PeerConnection.KeyType keyType) {
+        Entry entry = entries.get(keyType);
+        if ((entry != null && !entry.needsRenewal()) || !pending.add(keyType)) {
+            return;
+        }
+
+        executor.execute(() -> {
+            Entry newEntry = entry == null ? load(keyType) : null;
+            try {
+                if (newEntry == null || newEntry.needsRenewal()) {
+                    newEntry = generate(keyType);
+                    store(keyType, newEntry);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to generate a " + keyType + " certificate", e);
+                newEntry = null;
+            }
+
+            synchronized (this) {
+                pending.remove(keyType);
+                if (newEntry != null) {
+                    entries.put(keyType, newEntry);
+                }
+            }
+        });
+    }
+
+    private Entry generate(PeerConnection.KeyType keyType) {
+        long startTime = SystemClock.elapsedRealtime();
+        long expiresAt = System.currentTimeMillis() + lifetimeSeconds * 1000;
+        RtcCertificatePem certificate = RtcCertificatePem.generateCertificate(keyType, lifetimeSeconds);
+
+        Log.d(TAG, "Generated " + keyType + " certificate in " + (SystemClock.elapsedRealtime() - startTime) + "ms");
+
+        return new Entry(certificate, expiresAt);
+    }
+
+    @Nullable
+    private AtomicFile getFile(PeerConnection.KeyType keyType) {
+        return directory != null ? new AtomicFile(new File(directory, keyType.name() + ".json")) : null;
+    }
+
+    @Nullable
+    private Entry load(PeerConnection.KeyType keyType) {
+        AtomicFile file = getFile(keyType);
+        if (file == null || !file.getBaseFile().exists()) {
+            return null;
+        }
+
+        try {
+            JSONObject json = new JSONObject(new String(file.readFully(), StandardCharsets.UTF_8));
+            return new Entry(new RtcCertificatePem(json.getString("privateKey"), json.getString("certificate")),
+                    json.getLong("expiresAt"));
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Discarding malformed persisted certificate", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void store(PeerConnection.KeyType keyType, Entry entry) {
+        AtomicFile file = getFile(keyType);
+        if (file == null) {
+            return;
+        }
+
+        FileOutputStream out = null;
+        try {
+            JSONObject json = new JSONObject();
+            json.put("privateKey", entry.certificate.privateKey);
+            json.put("certificate", entry.certificate.certificate);
+            json.put("expiresAt", entry.expiresAt);
+
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            out = file.startWrite();
+            out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+            file.finishWrite(out);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to persist certificate", e);
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.oney.WebRTCModule;
+
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records when the milestones of a PeerConnection's setup happened, so it can
+ * be told where call setup time goes. Only the first occurrence of each
+ * milestone is kept. Times come from the monotonic
+ * {@link SystemClock#elapsedRealtime()} clock and are captured on the thread
+ * reporting the milestone, before any hop to the executor.
+ *
+ * Thread-safe.
+ */
+class ConnectionTimeline {
+    static final String INIT = "init";
+    static final String CREATE_OFFER = "createOffer";
+    static final String CREATE_ANSWER = "createAnswer";
+    static final String SET_LOCAL_DESCRIPTION = "setLocalDescription";
+    static final String SET_REMOTE_DESCRIPTION = "setRemoteDescription";
+    static final String FIRST_CANDIDATE = "firstCandidate";
+    static final String GATHERING_COMPLETE = "gatheringComplete";
+    static final String ICE_CHECKING = "iceChecking";
+    static final String ICE_CONNECTED = "iceConnected";
+    static final String CONNECTED = "connected";
+    static final String FIRST_TRACK = "firstTrack";
+
+    private final long wallClockOffset = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    private final Map<String, Long> milestones = new LinkedHashMap<>();
+    private final Map<String, Long> firstVideoFrames = new LinkedHashMap<>();
+
+    /**
+     * Records the given milestone, unless it was already.
+     *
+     * @return whether this was the first occurrence.
+     */
+    synchronized boolean mark(String milestone) {
+        return milestones.putIfAbsent(milestone, SystemClock.elapsedRealtime()) == null;
+    }
+
+    /**
+     * Records the given milestone as having happened at the given
+     * {@link SystemClock#elapsedRealtime()} time, unless it was already.
+     */
+    synchronized void markAt(String milestone, long time) {
+        milestones.putIfAbsent(milestone, time);
+    }
+
+    /**
+     * Records the first decoded frame of a remote video track. It's noticed
+     * through {@link StatsPoller}, so it's only accurate to its interval.
+     */
+    synchronized void markFirstVideoFrame(String trackId) {
+        firstVideoFrames.putIfAbsent(trackId, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Serializes the timeline. Milestones are in milliseconds since init, the
+     * init time itself is given as a Unix timestamp in milliseconds.
+     */
+    synchronized WritableMap toWritableMap() {
+        Long origin = milestones.get(INIT);
+        long originTime = origin != null ? origin : 0;
+
+        WritableMap result = Arguments.createMap();
+        if (origin != null) {
+            result.putDouble("initTimestamp", (double) (originTime + wallClockOffset));
+        }
+
+        WritableMap milestonesMap = Arguments.createMap();
+        for (Map.Entry<String, Long> entry : milestones.entrySet()) {
+            milestonesMap.putDouble(entry.getKey(), (double) (entry.getValue() - originTime));
+        }
+        result.putMap("milestones", milestonesMap);
+
+        WritableMap framesMap = Arguments.createMap();
+        for (Map.Entry<String, Long> entry : firstVideoFrames.entrySet()) {
+            framesMap.putDouble(entry.getKey(), (double) (entry.getValue() - originTime));
+        }
+        result.putMap("firstVideoFrames", framesMap);
+
+        return result;
+    }
+}
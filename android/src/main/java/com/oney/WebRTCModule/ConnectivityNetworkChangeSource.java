@@ -0,0 +1,99 @@
+package com.oney.WebRTCModule;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * {@link NetworkChangeSource} backed by a default network callback of
+ * {@link ConnectivityManager}. Requires the ACCESS_NETWORK_STATE permission.
+ */
+public class ConnectivityNetworkChangeSource implements NetworkChangeSource {
+    private static final String TAG = WebRTCModule.TAG;
+
+    private final ConnectivityManager connectivityManager;
+    @Nullable private ConnectivityManager.NetworkCallback networkCallback;
+
+    public ConnectivityNetworkChangeSource(Context context) {
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @Override
+    public synchronized void start(Listener listener) {
+        if (networkCallback != null) {
+            return;
+        }
+
+        ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+            // The last reported network and type, so capability updates which
+            // change neither aren't reported.
+            private Network network;
+            private String networkType;
+
+            @Override
+            public void onCapabilitiesChanged(
+                    @NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+                report(network, getNetworkType(networkCapabilities));
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                if (network.equals(this.network)) {
+                    report(null, null);
+                }
+            }
+
+            private void report(@Nullable Network network, @Nullable String networkType) {
+                if (Objects.equals(network, this.network) && Objects.equals(networkType, this.networkType)) {
+                    return;
+                }
+                this.network = network;
+                this.networkType = networkType;
+
+                // Callbacks already on their way when stopped are dropped.
+                synchronized (ConnectivityNetworkChangeSource.this) {
+                    if (networkCallback == this) {
+                        listener.onNetworkChanged(
+                                network != null ? String.valueOf(network.getNetworkHandle()) : null, networkType);
+                    }
+                }
+            }
+        };
+        networkCallback = callback;
+
+        try {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Cannot monitor the network, is ACCESS_NETWORK_STATE granted?", e);
+            networkCallback = null;
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (networkCallback != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+        }
+    }
+
+    private static String getNetworkType(NetworkCapabilities capabilities) {
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_VPN)) {
+            return "vpn";
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return "wifi";
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return "cellular";
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return "ethernet";
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,131 @@
+package com.oney.WebRTCModule;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses / decompresses DataChannel payloads with raw DEFLATE. Each
+ * channel owns one instance, so the {@link Deflater} and {@link Inflater}
+ * (and their native buffers) are reused across messages instead of being
+ * allocated for each one of them.
+ *
+ * This class intentionally depends on the JDK only, so it can be exercised
+ * off-device, see {@code tools/benchmarks/DataChannelCompressionBenchmark.java}.
+ */
+final class DataChannelCompressor {
+    /**
+     * Payloads smaller than this are not worth the CPU time: DEFLATE barely
+     * shrinks them, if at all.
+     */
+    static final int MIN_COMPRESS_SIZE = 256;
+
+    /**
+     * On JSON-like payloads the fastest level saves only a few percent less
+     * than the default one, for a third of the CPU time on large messages.
+     */
+    static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+
+    private final int level;
+    private final byte[] deflateScratch = new byte[8 * 1024];
+    private final byte[] inflateScratch = new byte[8 * 1024];
+    private final ByteArrayOutputStream deflateOut = new ByteArrayOutputStream(8 * 1024);
+    private final ByteArrayOutputStream inflateOut = new ByteArrayOutputStream(8 * 1024);
+
+    private Deflater deflater;
+    private Inflater inflater;
+
+    DataChannelCompressor() {
+        this(DEFAULT_LEVEL);
+    }
+
+    DataChannelCompressor(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Compresses the given payload.
+     *
+     * @return the compressed payload or {@code null} if compressing it is not
+     * worth it, i.e. the payload is too small or it would not shrink.
+     */
+    byte[] compress(byte[] data) {
+        if (data.length < MIN_COMPRESS_SIZE) {
+            return null;
+        }
+
+        synchronized (deflateOut) {
+            if (deflater == null) {
+                deflater = new Deflater(level, /* nowrap */ true);
+            } else {
+                deflater.reset();
+            }
+            deflateOut.reset();
+
+            deflater.setInput(data);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(deflateScratch);
+                deflateOut.write(deflateScratch, 0, n);
+                if (deflateOut.size() >= data.length) {
+                    return null;
+                }
+            }
+
+            return deflateOut.toByteArray();
+        }
+    }
+
+    /**
+     * Decompresses the given payload.
+     *
+     * @param maxSize the maximum decompressed size, to protect against
+     * decompression bombs.
+     * @throws DataFormatException if the payload is corrupt or it exceeds
+     * {@code maxSize} once decompressed.
+     */
+    byte[] decompress(byte[] data, int maxSize) throws DataFormatException {
+        synchronized (inflateOut) {
+            if (inflater == null) {
+                inflater = new Inflater(/* nowrap */ true);
+            } else {
+                inflater.reset();
+            }
+            inflateOut.reset();
+
+            inflater.setInput(data);
+            while (!inflater.finished()) {
+                int n = inflater.inflate(inflateScratch);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated DEFLATE payload");
+                }
+                inflateOut.write(inflateScratch, 0, n);
+                if (inflateOut.size() > maxSize) {
+                    throw new DataFormatException("Decompressed payload exceeds " + maxSize + " bytes");
+                }
+            }
+
+            return inflateOut.toByteArray();
+        }
+    }
+
+    /**
+     * Releases the native resources held by the {@link Deflater} and
+     * {@link Inflater}.
+     */
+    void release() {
+        synchronized (deflateOut) {
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+        }
+        synchronized (inflateOut) {
+            if (inflater != null) {
+                inflater.end();
+                inflater = null;
+            }
+        }
+    }
+}
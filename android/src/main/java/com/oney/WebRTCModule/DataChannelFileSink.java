@@ -0,0 +1,206 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes the binary messages received on a {@link DataChannelWrapper} straight
+ * to a file, instead of shipping them to JS as Base64 strings. The actual
+ * writes happen on the I/O executor through a buffered {@link FileChannel};
+ * JS only gets progress events and the promise settles upon completion.
+ */
+class DataChannelFileSink {
+    private static final String TAG = WebRTCModule.TAG;
+
+    static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    static final long DEFAULT_PROGRESS_INTERVAL = 256 * 1024;
+
+    private final WebRTCModule webRTCModule;
+    private final int peerConnectionId;
+    private final String reactTag;
+    private final File file;
+    private final long expectedSize;
+    private final long progressInterval;
+    private final Promise promise;
+
+    // Accessed on the I/O executor only.
+    private FileChannel fileChannel;
+    private ByteBuffer writeBuffer;
+    private long bytesWritten;
+    private long lastProgressBytes;
+    private boolean finished;
+
+    // Accessed on the thread dispatching the messages of the channel only.
+    private long bytesAccepted;
+
+    DataChannelFileSink(WebRTCModule webRTCModule,
+            int peerConnectionId,
+            String reactTag,
+            String path,
+            long expectedSize,
+            long progressInterval,
+            Promise promise) {
+        this.webRTCModule = webRTCModule;
+        this.peerConnectionId = peerConnectionId;
+        this.reactTag = reactTag;
+        this.file = new File(path);
+        this.expectedSize = expectedSize;
+        this.progressInterval = progressInterval > 0 ? progressInterval : DEFAULT_PROGRESS_INTERVAL;
+        this.promise = promise;
+    }
+
+    /**
+     * Opens the destination file on the I/O executor. Failures reject the
+     * promise right away.
+     */
+    void open() {
+        ThreadUtils.runOnIoExecutor(() -> {
+            try {
+                File parent = file.getParentFile();
+                if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                    throw new IOException("Could not create directory " + parent);
+                }
+                fileChannel = new FileOutputStream(file, false).getChannel();
+                writeBuffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+            } catch (IOException e) {
+                Log.e(TAG, "DataChannelFileSink: could not open " + file, e);
+                finished = true;
+                promise.reject("E_IO_ERROR", e);
+            }
+        });
+    }
+
+    /**
+     * Hands a received message to the sink. Must be called from the thread
+     * which dispatches the messages of the channel (see
+     * {@link DataChannelFraming.MessageHandler}), the given array must not be
+     * modified afterwards.
+     *
+     * @return {@code true} if the sink has received all the expected bytes and
+     * it should no longer be fed.
+     */
+    boolean accept(byte[] data) {
+        bytesAccepted += data.length;
+        ThreadUtils.runOnIoExecutor(() -> write(data));
+
+        return expectedSize > 0 && bytesAccepted >= expectedSize;
+    }
+
+    /**
+     * Flushes and closes the file, settling the promise. A sink which was
+     * expecting a known number of bytes fails if it didn't get all of them.
+     */
+    void finish() {
+        ThreadUtils.runOnIoExecutor(() -> {
+            if (expectedSize > 0 && bytesWritten < expectedSize) {
+                close(new IOException("DataChannel sink ended after " + bytesWritten + " of " + expectedSize
+                        + " bytes"));
+            } else {
+                close(null);
+            }
+        });
+    }
+
+    /**
+     * Aborts the transfer, e.g. because the DataChannel went away.
+     */
+    void abort(String reason) {
+        ThreadUtils.runOnIoExecutor(() -> close(new IOException(reason)));
+    }
+
+    private void write(byte[] data) {
+        if (finished) {
+            return;
+        }
+
+        try {
+            if (data.length > writeBuffer.remaining()) {
+                flush();
+            }
+            if (data.length >= writeBuffer.capacity()) {
+                ByteBuffer src = ByteBuffer.wrap(data);
+                while (src.hasRemaining()) {
+                    fileChannel.write(src);
+                }
+            } else {
+                writeBuffer.put(data);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "DataChannelFileSink: write failed for " + file, e);
+            close(e);
+            return;
+        }
+
+        bytesWritten += data.length;
+
+        if (expectedSize > 0 && bytesWritten >= expectedSize) {
+            close(null);
+        } else if (bytesWritten - lastProgressBytes >= progressInterval) {
+            lastProgressBytes = bytesWritten;
+            sendProgress();
+        }
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            fileChannel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void close(Exception error) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        if (fileChannel != null) {
+            try {
+                if (error == null) {
+                    flush();
+                }
+                fileChannel.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            fileChannel = null;
+            writeBuffer = null;
+        }
+
+        if (error != null) {
+            promise.reject("E_IO_ERROR", error.getMessage(), error);
+            return;
+        }
+
+        sendProgress();
+
+        WritableMap result = Arguments.createMap();
+        result.putString("path", file.getAbsolutePath());
+        result.putDouble("bytesWritten", (double) bytesWritten);
+        promise.resolve(result);
+    }
+
+    private void sendProgress() {
+        WritableMap params = Arguments.createMap();
+        params.putString("reactTag", reactTag);
+        params.putInt("peerConnectionId", peerConnectionId);
+        params.putDouble("bytesWritten", (double) bytesWritten);
+        if (expectedSize > 0) {
+            params.putDouble("expectedSize", (double) expectedSize);
+        }
+
+        webRTCModule.sendEvent("dataChannelFileSinkProgress", params);
+    }
+}
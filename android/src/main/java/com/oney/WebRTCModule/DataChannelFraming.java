@@ -0,0 +1,330 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+/**
+ * Opt-in framing layer for DataChannel messages which transparently splits
+ * large messages into MTU-friendly chunks and reassembles them on the
+ * receiving side, so JS only deals with whole messages. It can also
+ * compress text messages with DEFLATE.
+ *
+ * Chunking is enabled when the channel protocol contains the
+ * {@link #CHUNKED_TOKEN} token, compression when it contains the
+ * {@link #DEFLATE_TOKEN} one, both ends must agree on them. Text messages
+ * are only sent compressed when it actually makes them smaller, which is
+ * signalled per message through {@link #FLAG_DEFLATED}. The Android
+ * DataChannel API doesn't expose the protocol of channels announced by the
+ * remote peer, so framing is only available on {@code negotiated} channels,
+ * where both ends set the protocol themselves.
+ *
+ * When a frame can't be sent, the message is abandoned and the receiver is
+ * told to drop what it got of it with a header only {@link #FLAG_ABORTED}
+ * frame, if that can be sent.
+ *
+ * Every message on a framed channel is sent as one or more binary frames:
+ *
+ * <pre>
+ * +-------+------------+----------------+------------------+
+ * | flags | message id | fragment index | payload ...      |
+ * | 1 B   | 4 B        | 4 B            |                  |
+ * +-------+------------+----------------+------------------+
+ * </pre>
+ */
+class DataChannelFraming {
+    private static final String TAG = WebRTCModule.TAG;
+
+    static final String CHUNKED_TOKEN = "x-rn-chunked";
+    static final String DEFLATE_TOKEN = "x-rn-deflate";
+
+    static final int FLAG_FINAL = 0x01;
+    static final int FLAG_BINARY = 0x02;
+    static final int FLAG_DEFLATED = 0x04;
+    static final int FLAG_ABORTED = 0x08;
+
+    static final int HEADER_SIZE = 9;
+
+    /**
+     * The largest frame sent, header included. 16 KiB is the message size
+     * every WebRTC implementation is known to handle without fragmentation
+     * issues.
+     */
+    static final int MAX_FRAME_SIZE = 16 * 1024;
+
+    /**
+     * Upper bound of the memory used by partially received messages. When
+     * exceeded, the oldest partial messages are dropped.
+     */
+    static final int MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Upper bound of the number of partially received messages, relevant for
+     * unordered / unreliable channels where fragments may never arrive.
+     */
+    static final int MAX_PENDING_MESSAGES = 32;
+
+    private static final int MAX_FRAGMENTS = MAX_PENDING_BYTES / (MAX_FRAME_SIZE - HEADER_SIZE) + 1;
+
+    interface MessageHandler {
+        /**
+         * Called on the thread delivering DataChannel messages or, if
+         * compression was negotiated, on the decompression executor.
+         */
+        void onMessage(byte[] data, boolean binary);
+    }
+
+    interface FrameSender {
+        boolean send(ByteBuffer frame);
+    }
+
+    /**
+     * A message which hasn't been fully received yet.
+     */
+    private static class PartialMessage {
+        final List<byte[]> fragments = new ArrayList<>();
+        int receivedFragments;
+        int totalFragments = -1;
+        int size;
+        boolean binary;
+        boolean deflated;
+    }
+
+    private final boolean chunked;
+
+    @Nullable
+    private final DataChannelCompressor compressor;
+
+    private int nextMessageId;
+
+    // Accessed on the thread delivering DataChannel messages only.
+    private final Map<Integer, PartialMessage> pendingMessages = new LinkedHashMap<>();
+    private int pendingBytes;
+
+    DataChannelFraming(boolean chunked, boolean deflate) {
+        this.chunked = chunked;
+        this.compressor = deflate ? new DataChannelCompressor() : null;
+    }
+
+    @Nullable
+    static DataChannelFraming forProtocol(@Nullable String protocol) {
+        boolean chunked = hasProtocolToken(protocol, CHUNKED_TOKEN);
+        boolean deflate = hasProtocolToken(protocol, DEFLATE_TOKEN);
+        if (chunked || deflate) {
+            return new DataChannelFraming(chunked, deflate);
+        }
+        return null;
+    }
+
+    static boolean hasProtocolToken(@Nullable String protocol, String token) {
+        if (protocol == null || protocol.isEmpty()) {
+            return false;
+        }
+        for (String t : protocol.split("[\\s,;]+")) {
+            if (t.equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compresses the given message if applicable, splits it into frames and
+     * hands them to the sender.
+     *
+     * @return {@code false} if a frame could not be sent.
+     */
+    synchronized boolean send(byte[] data, boolean binary, FrameSender sender) {
+        boolean deflated = false;
+        if (compressor != null && !binary) {
+            byte[] compressed = compressor.compress(data);
+            if (compressed != null) {
+                data = compressed;
+                deflated = true;
+            }
+        }
+
+        final int messageId = nextMessageId++;
+        final int chunkSize = chunked ? MAX_FRAME_SIZE - HEADER_SIZE : Math.max(data.length, 1);
+        final int messageFlags = (binary ? FLAG_BINARY : 0) | (deflated ? FLAG_DEFLATED : 0);
+        int offset = 0;
+        int index = 0;
+
+        do {
+            int length = Math.min(chunkSize, data.length - offset);
+            boolean last = offset + length >= data.length;
+            int flags = (last ? FLAG_FINAL : 0) | messageFlags;
+
+            ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + length);
+            frame.put((byte) flags);
+            frame.putInt(messageId);
+            frame.putInt(index);
+            frame.put(data, offset, length);
+            frame.flip();
+
+            if (!sender.send(frame)) {
+                if (index > 0) {
+                    abort(messageId, index, sender);
+                }
+                return false;
+            }
+
+            offset += length;
+            index++;
+        } while (offset < data.length);
+
+        return true;
+    }
+
+    private static void abort(int messageId, int index, FrameSender sender) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE);
+        frame.put((byte) FLAG_ABORTED);
+        frame.putInt(messageId);
+        frame.putInt(index);
+        frame.flip();
+
+        if (!sender.send(frame)) {
+            Log.w(TAG, "DataChannelFraming: could not abort message " + messageId);
+        }
+    }
+
+    /**
+     * Processes a received frame, the handler gets called once a whole
+     * message is available.
+     */
+    void receive(ByteBuffer frame, MessageHandler handler) {
+        if (frame.remaining() < HEADER_SIZE) {
+            Log.w(TAG, "DataChannelFraming: dropping malformed frame of " + frame.remaining() + " bytes");
+            return;
+        }
+
+        int flags = frame.get() & 0xff;
+        int messageId = frame.getInt();
+        int index = frame.getInt();
+
+        if ((flags & FLAG_ABORTED) != 0) {
+            PartialMessage aborted = pendingMessages.remove(messageId);
+            if (aborted != null) {
+                Log.d(TAG, "DataChannelFraming: message " + messageId + " was aborted by the sender");
+                pendingBytes -= aborted.size;
+            }
+            return;
+        }
+
+        boolean last = (flags & FLAG_FINAL) != 0;
+        boolean binary = (flags & FLAG_BINARY) != 0;
+        boolean deflated = (flags & FLAG_DEFLATED) != 0;
+
+        if (index < 0 || index >= MAX_FRAGMENTS) {
+            Log.w(TAG, "DataChannelFraming: dropping frame with invalid index " + index);
+            return;
+        }
+
+        byte[] payload = new byte[frame.remaining()];
+        frame.get(payload);
+
+        PartialMessage message = pendingMessages.get(messageId);
+
+        // Fast path: single frame messages.
+        if (message == null && index == 0 && last) {
+            deliver(payload, binary, deflated, handler);
+            return;
+        }
+
+        if (message == null) {
+            message = new PartialMessage();
+            pendingMessages.put(messageId, message);
+        }
+
+        while (message.fragments.size() <= index) {
+            message.fragments.add(null);
+        }
+        if (message.fragments.get(index) != null) {
+            // Duplicate, shouldn't happen with SCTP.
+            return;
+        }
+
+        message.fragments.set(index, payload);
+        message.receivedFragments++;
+        message.size += payload.length;
+        message.binary = binary;
+        message.deflated = deflated;
+        if (last) {
+            message.totalFragments = index + 1;
+        }
+        pendingBytes += payload.length;
+
+        if (message.totalFragments == message.receivedFragments) {
+            pendingMessages.remove(messageId);
+            pendingBytes -= message.size;
+
+            byte[] data = new byte[message.size];
+            int offset = 0;
+            for (byte[] fragment : message.fragments) {
+                System.arraycopy(fragment, 0, data, offset, fragment.length);
+                offset += fragment.length;
+            }
+
+            deliver(data, message.binary, message.deflated, handler);
+            return;
+        }
+
+        evictPendingMessages();
+    }
+
+    /**
+     * Releases the resources held by the compressor, if any.
+     */
+    void release() {
+        if (compressor != null) {
+            // After the messages still being decompressed.
+            ThreadUtils.runOnDecompressionExecutor(compressor::release);
+        }
+    }
+
+    private void deliver(byte[] data, boolean binary, boolean deflated, MessageHandler handler) {
+        if (compressor == null) {
+            if (deflated) {
+                Log.w(TAG, "DataChannelFraming: dropping compressed message, compression was not negotiated");
+                return;
+            }
+            handler.onMessage(data, binary);
+            return;
+        }
+
+        // Inflating up to MAX_PENDING_BYTES must not hold up the WebRTC
+        // thread. All the messages of the channel take this route, so they
+        // are delivered in order.
+        ThreadUtils.runOnDecompressionExecutor(() -> {
+            byte[] message = data;
+            if (deflated) {
+                try {
+                    message = compressor.decompress(data, MAX_PENDING_BYTES);
+                } catch (DataFormatException e) {
+                    Log.w(TAG, "DataChannelFraming: dropping message which failed to decompress", e);
+                    return;
+                }
+            }
+            handler.onMessage(message, binary);
+        });
+    }
+
+    private void evictPendingMessages() {
+        Iterator<Map.Entry<Integer, PartialMessage>> it = pendingMessages.entrySet().iterator();
+
+        while ((pendingBytes > MAX_PENDING_BYTES || pendingMessages.size() > MAX_PENDING_MESSAGES) && it.hasNext()) {
+            Map.Entry<Integer, PartialMessage> entry = it.next();
+            Log.w(TAG, "DataChannelFraming: dropping incomplete message " + entry.getKey());
+            pendingBytes -= entry.getValue().size;
+            it.remove();
+        }
+    }
+}
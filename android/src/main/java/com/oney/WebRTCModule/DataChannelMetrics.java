@@ -0,0 +1,93 @@
+package com.oney.WebRTCModule;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and latency counters of a single DataChannel. Outgoing messages
+ * are accounted on the module executor, incoming ones on the thread which
+ * dispatches them, snapshots can be taken from any thread.
+ *
+ * Byte counts refer to the application payload, i.e. before framing /
+ * compression on the way out and after them on the way in. Received counts
+ * include the messages diverted to a file sink. Encode / decode times cover
+ * the conversion between the JS representation (UTF-8 text or Base64) and
+ * raw bytes.
+ *
+ * The executor queue time only covers the wait for the module executor
+ * before a message is handed to the DataChannel. The time spent in the SCTP
+ * send buffer afterwards is not measured, {@code maxBufferedAmount} gives an
+ * idea of it.
+ */
+class DataChannelMetrics {
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong totalExecutorQueueTimeNs = new AtomicLong();
+    private final AtomicLong maxExecutorQueueTimeNs = new AtomicLong();
+    private final AtomicLong totalEncodeTimeNs = new AtomicLong();
+    private final AtomicLong totalDecodeTimeNs = new AtomicLong();
+    private final AtomicLong maxBufferedAmount = new AtomicLong();
+
+    /**
+     * Accounts a message handed to the DataChannel.
+     *
+     * @param queueTimeNs the time the message spent waiting for the executor.
+     * @param encodeTimeNs the time spent converting the message to bytes.
+     */
+    void onMessageSent(int bytes, long queueTimeNs, long encodeTimeNs) {
+        messagesSent.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+        totalExecutorQueueTimeNs.addAndGet(queueTimeNs);
+        updateMax(maxExecutorQueueTimeNs, queueTimeNs);
+        totalEncodeTimeNs.addAndGet(encodeTimeNs);
+    }
+
+    /**
+     * Accounts a message delivered to JS or to a file sink.
+     *
+     * @param decodeTimeNs the time spent converting the message from bytes.
+     */
+    void onMessageReceived(int bytes, long decodeTimeNs) {
+        messagesReceived.incrementAndGet();
+        bytesReceived.addAndGet(bytes);
+        totalDecodeTimeNs.addAndGet(decodeTimeNs);
+    }
+
+    void onBufferedAmount(long amount) {
+        updateMax(maxBufferedAmount, amount);
+    }
+
+    /**
+     * Serializes the current values. Times are expressed in seconds, like the
+     * {@code total*Time} members of the WebRTC stats.
+     */
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("timestamp", (double) System.currentTimeMillis());
+        map.putDouble("messagesSent", (double) messagesSent.get());
+        map.putDouble("bytesSent", (double) bytesSent.get());
+        map.putDouble("messagesReceived", (double) messagesReceived.get());
+        map.putDouble("bytesReceived", (double) bytesReceived.get());
+        map.putDouble("totalExecutorQueueTime", toSeconds(totalExecutorQueueTimeNs.get()));
+        map.putDouble("maxExecutorQueueTime", toSeconds(maxExecutorQueueTimeNs.get()));
+        map.putDouble("totalEncodeTime", toSeconds(totalEncodeTimeNs.get()));
+        map.putDouble("totalDecodeTime", toSeconds(totalDecodeTimeNs.get()));
+        map.putDouble("maxBufferedAmount", (double) maxBufferedAmount.get());
+        return map;
+    }
+
+    private static double toSeconds(long ns) {
+        return ns / 1e9;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
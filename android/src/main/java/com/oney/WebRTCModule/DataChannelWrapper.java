@@ -17,10 +17,30 @@ class DataChannelWrapper implements DataChannel.Observer {
     private final int peerConnectionId;
     private final WebRTCModule webRTCModule;
 
-    DataChannelWrapper(WebRTCModule webRTCModule, int peerConnectionId, String reactTag, DataChannel dataChannel) {
+    /**
+     * The framing layer which chunks and reassembles large messages and / or
+     * compresses text messages, if it was requested through the channel
+     * protocol.
+     */
+    @Nullable
+    private final DataChannelFraming framing;
+
+    /**
+     * The sink which binary messages are diverted to instead of JS, if any.
+     */
+    private volatile DataChannelFileSink fileSink;
+
+    private final DataChannelMetrics metrics = new DataChannelMetrics();
+
+    DataChannelWrapper(WebRTCModule webRTCModule,
+            int peerConnectionId,
+            String reactTag,
+            DataChannel dataChannel,
+            @Nullable DataChannelFraming framing) {
         this.webRTCModule = webRTCModule;
         this.peerConnectionId = peerConnectionId;
         this.reactTag = reactTag;
+        this.framing = framing;
         mDataChannel = dataChannel;
     }
 
@@ -32,6 +52,42 @@ class DataChannelWrapper implements DataChannel.Observer {
         return reactTag;
     }
 
+    @Nullable
+    DataChannelFraming getFraming() {
+        return framing;
+    }
+
+    DataChannelMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Diverts the binary messages received on this channel to the given sink,
+     * text messages keep flowing to JS. Any previously set sink is ended.
+     */
+    void setFileSink(@Nullable DataChannelFileSink sink) {
+        DataChannelFileSink oldSink = fileSink;
+        fileSink = sink;
+        if (oldSink != null) {
+            oldSink.finish();
+        }
+    }
+
+    /**
+     * Releases the resources associated with this channel, aborting the file
+     * sink, if any. The observer must have been unregistered already.
+     */
+    void dispose(String reason) {
+        DataChannelFileSink sink = fileSink;
+        fileSink = null;
+        if (sink != null) {
+            sink.abort(reason);
+        }
+        if (framing != null) {
+            framing.release();
+        }
+    }
+
     @Nullable
     public String dataChannelStateString(DataChannel.State dataChannelState) {
         switch (dataChannelState) {
@@ -49,6 +105,8 @@ class DataChannelWrapper implements DataChannel.Observer {
 
     @Override
     public void onBufferedAmountChange(long amount) {
+        metrics.onBufferedAmount(amount);
+
         WritableMap params = Arguments.createMap();
         params.putString("reactTag", reactTag);
         params.putInt("peerConnectionId", peerConnectionId);
@@ -59,9 +117,10 @@ class DataChannelWrapper implements DataChannel.Observer {
 
     @Override
     public void onMessage(DataChannel.Buffer buffer) {
-        WritableMap params = Arguments.createMap();
-        params.putString("reactTag", reactTag);
-        params.putInt("peerConnectionId", peerConnectionId);
+        if (framing != null && buffer.binary) {
+            framing.receive(buffer.data, this::dispatchMessage);
+            return;
+        }
 
         byte[] bytes;
         if (buffer.data.hasArray()) {
@@ -71,15 +130,38 @@ class DataChannelWrapper implements DataChannel.Observer {
             buffer.data.get(bytes);
         }
 
+        dispatchMessage(bytes, buffer.binary);
+    }
+
+    /**
+     * Delivers a whole message either to the file sink or to JS.
+     */
+    private void dispatchMessage(byte[] bytes, boolean binary) {
+        DataChannelFileSink sink = fileSink;
+        if (sink != null && binary) {
+            metrics.onMessageReceived(bytes.length, 0);
+            if (sink.accept(bytes)) {
+                // All the expected bytes were received, subsequent messages go to JS again.
+                fileSink = null;
+            }
+            return;
+        }
+
+        WritableMap params = Arguments.createMap();
+        params.putString("reactTag", reactTag);
+        params.putInt("peerConnectionId", peerConnectionId);
+
+        long decodeStart = System.nanoTime();
         String type;
         String data;
-        if (buffer.binary) {
+        if (binary) {
             type = "binary";
             data = Base64.encodeToString(bytes, Base64.NO_WRAP);
         } else {
             type = "text";
             data = new String(bytes, StandardCharsets.UTF_8);
         }
+        metrics.onMessageReceived(bytes.length, System.nanoTime() - decodeStart);
         params.putString("type", type);
         params.putString("data", data);
 
@@ -88,11 +170,17 @@ class DataChannelWrapper implements DataChannel.Observer {
 
     @Override
     public void onStateChange() {
+        DataChannel.State state = mDataChannel.state();
+        if (state == DataChannel.State.CLOSED) {
+            // A sink without an expected size completes when the channel closes.
+            setFileSink(null);
+        }
+
         WritableMap params = Arguments.createMap();
         params.putString("reactTag", reactTag);
         params.putInt("peerConnectionId", peerConnectionId);
         params.putInt("id", mDataChannel.id());
-        params.putString("state", dataChannelStateString(mDataChannel.state()));
+        params.putString("state", dataChannelStateString(state));
 
         webRTCModule.sendEvent("dataChannelStateChanged", params);
     }
@@ -0,0 +1,205 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import org.webrtc.IceCandidate;
+import org.webrtc.PeerConnection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Drops local ICE candidates natively, before they are serialized and sent to
+ * JS. The filter is a list of rules and a candidate is dropped if it matches
+ * any of them. A rule matches if all of its members do, each member being a
+ * value or a list of values:
+ *
+ * <pre>
+ * [
+ *   { addressFamily: 'ipv6' },               // 'ipv4', 'ipv6', 'hostname' (mDNS)
+ *   { type: 'host', protocol: 'tcp' },       // type: host, srflx, prflx, relay
+ *   { networkType: ['cellular', 'vpn'] },    // ethernet, wifi, cellular, vpn, loopback, unknown
+ *   { type: 'relay', relayProtocol: 'tcp' }  // udp, tcp, tls
+ * ]
+ * </pre>
+ */
+class IceCandidateFilter {
+    private static final String TAG = WebRTCModule.TAG;
+
+    private static class Rule {
+        @Nullable Set<String> types;
+        @Nullable Set<String> protocols;
+        @Nullable Set<String> networkTypes;
+        @Nullable Set<String> addressFamilies;
+        @Nullable Set<String> relayProtocols;
+
+        boolean matches(CandidateInfo info) {
+            return matches(types, info.type) && matches(protocols, info.protocol)
+                    && matches(networkTypes, info.networkType) && matches(addressFamilies, info.addressFamily)
+                    && matches(relayProtocols, info.relayProtocol);
+        }
+
+        private static boolean matches(@Nullable Set<String> values, @Nullable String value) {
+            return values == null || (value != null && values.contains(value));
+        }
+    }
+
+    /**
+     * The members of a candidate rules can match on.
+     */
+    private static class CandidateInfo {
+        String protocol;
+        String type;
+        String addressFamily;
+        String networkType;
+        @Nullable String relayProtocol;
+    }
+
+    private final List<Rule> rules;
+
+    private IceCandidateFilter(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Parses a filter, invalid members are ignored.
+     *
+     * @return the filter or {@code null} if it has no rules.
+     */
+    @Nullable
+    static IceCandidateFilter fromReadableArray(ReadableArray array) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < array.size(); i++) {
+            if (array.getType(i) != ReadableType.Map) {
+                Log.w(TAG, "IceCandidateFilter: ignoring a rule which is not an object");
+                continue;
+            }
+
+            ReadableMap map = array.getMap(i);
+            Rule rule = new Rule();
+            rule.types = parseValues(map, "type");
+            rule.protocols = parseValues(map, "protocol");
+            rule.networkTypes = parseValues(map, "networkType");
+            rule.addressFamilies = parseValues(map, "addressFamily");
+            rule.relayProtocols = parseValues(map, "relayProtocol");
+            rules.add(rule);
+        }
+
+        return rules.isEmpty() ? null : new IceCandidateFilter(rules);
+    }
+
+    /**
+     * @return whether the given candidate must be dropped.
+     */
+    boolean rejects(IceCandidate candidate) {
+        CandidateInfo info = parseCandidate(candidate);
+        if (info == null) {
+            return false;
+        }
+
+        for (Rule rule : rules) {
+            if (rule.matches(info)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static Set<String> parseValues(ReadableMap map, String key) {
+        if (!map.hasKey(key)) {
+            return null;
+        }
+
+        Set<String> values = new HashSet<>();
+        if (map.getType(key) == ReadableType.String) {
+            values.add(map.getString(key).toLowerCase(Locale.ROOT));
+        } else if (map.getType(key) == ReadableType.Array) {
+            ReadableArray array = map.getArray(key);
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getType(i) == ReadableType.String) {
+                    values.add(array.getString(i).toLowerCase(Locale.ROOT));
+                }
+            }
+        } else {
+            Log.w(TAG, "IceCandidateFilter: ignoring invalid " + key);
+            return null;
+        }
+        return values;
+    }
+
+    /**
+     * Parses the members rules can match on out of a candidate, whose SDP
+     * looks like:
+     * {@code candidate:<foundation> <component> <protocol> <priority> <address> <port> typ <type> ...}
+     */
+    @Nullable
+    private static CandidateInfo parseCandidate(IceCandidate candidate) {
+        String[] parts = candidate.sdp.split(" ");
+        if (parts.length < 8 || !"typ".equals(parts[6])) {
+            return null;
+        }
+
+        CandidateInfo info = new CandidateInfo();
+        info.protocol = parts[2].toLowerCase(Locale.ROOT);
+        info.type = parts[7].toLowerCase(Locale.ROOT);
+
+        String address = parts[4];
+        if (address.indexOf(':') != -1) {
+            info.addressFamily = "ipv6";
+        } else if (address.endsWith(".local")) {
+            info.addressFamily = "hostname";
+        } else {
+            info.addressFamily = "ipv4";
+        }
+
+        PeerConnection.AdapterType adapterType = candidate.adapterType;
+        if (adapterType == null) {
+            info.networkType = "unknown";
+        } else if (adapterType.name().startsWith("CELLULAR")) {
+            info.networkType = "cellular";
+        } else {
+            switch (adapterType) {
+                case ETHERNET:
+                    info.networkType = "ethernet";
+                    break;
+                case WIFI:
+                    info.networkType = "wifi";
+                    break;
+                case VPN:
+                    info.networkType = "vpn";
+                    break;
+                case LOOPBACK:
+                    info.networkType = "loopback";
+                    break;
+                default:
+                    info.networkType = "unknown";
+                    break;
+            }
+        }
+
+        // The protocol used to talk to the TURN server, from its URL.
+        String serverUrl = candidate.serverUrl;
+        if ("relay".equals(info.type) && serverUrl != null && !serverUrl.isEmpty()) {
+            String url = serverUrl.toLowerCase(Locale.ROOT);
+            if (url.startsWith("turns:")) {
+                info.relayProtocol = "tls";
+            } else if (url.contains("transport=tcp")) {
+                info.relayProtocol = "tcp";
+            } else {
+                info.relayProtocol = "udp";
+            }
+        }
+
+        return info;
+    }
+}
@@ -0,0 +1,201 @@
+package com.oney.WebRTCModule;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches the packets and bytes flowing through each RTP stream (SSRC) of a
+ * PeerConnection, both inbound and outbound, audio and video, based on the
+ * stats collected by {@link StatsPoller}. A stream which made progress before
+ * but none for {@code stallThreshold} milliseconds is reported as stalled
+ * with a {@code mediaFlowStalled} event, and as resumed with a
+ * {@code mediaFlowResumed} event once it makes progress again.
+ *
+ * Configured with the non-standard {@code mediaFlowWatchdog} configuration
+ * member:
+ *
+ * <pre>
+ * {
+ *   stallThreshold?: number,                 // ms, defaults to 1000
+ *   interval?: number,                       // stats polling ms, defaults to 500
+ *   kinds?: ('audio' | 'video')[],           // defaults to both
+ *   directions?: ('inbound' | 'outbound')[]  // defaults to both
+ * }
+ * </pre>
+ *
+ * Accessed on the executor only.
+ */
+class MediaFlowWatchdog implements StatsPoller.Listener {
+    private static final String TAG = WebRTCModule.TAG;
+
+    static final long DEFAULT_STALL_THRESHOLD_MS = 1000;
+    static final long DEFAULT_INTERVAL_MS = 500;
+
+    private static class StreamState {
+        String kind;
+        String direction;
+        String trackId;
+        String mid;
+        long packets = -1;
+        long bytes = -1;
+        long lastProgressTime;
+        boolean stalled;
+        boolean seen;
+    }
+
+    private final PeerConnectionObserver pco;
+    private final long stallThresholdMs;
+    private final long intervalMs;
+    private final Set<String> kinds = new HashSet<>();
+    private final Set<String> directions = new HashSet<>();
+
+    // Keyed by stats type and SSRC.
+    private final Map<String, StreamState> streams = new HashMap<>();
+
+    MediaFlowWatchdog(PeerConnectionObserver pco, ReadableMap config) {
+        this.pco = pco;
+        this.stallThresholdMs = getPositiveLong(config, "stallThreshold", DEFAULT_STALL_THRESHOLD_MS);
+        this.intervalMs = getPositiveLong(config, "interval", DEFAULT_INTERVAL_MS);
+        parseValues(config, "kinds", kinds, "audio", "video");
+        parseValues(config, "directions", directions, "inbound", "outbound");
+    }
+
+    long getIntervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void onStats(RTCStatsReport report) {
+        long now = SystemClock.elapsedRealtime();
+
+        for (StreamState state : streams.values()) {
+            state.seen = false;
+        }
+
+        for (RTCStats stats : report.getStatsMap().values()) {
+            String direction;
+            String packetsMember;
+            String bytesMember;
+            if ("inbound-rtp".equals(stats.getType())) {
+                direction = "inbound";
+                packetsMember = "packetsReceived";
+                bytesMember = "bytesReceived";
+            } else if ("outbound-rtp".equals(stats.getType())) {
+                direction = "outbound";
+                packetsMember = "packetsSent";
+                bytesMember = "bytesSent";
+            } else {
+                continue;
+            }
+
+            Map<String, Object> members = stats.getMembers();
+            Object kind = members.get("kind");
+            if (!directions.contains(direction) || !kinds.contains(kind)) {
+                continue;
+            }
+
+            String key = direction + ":" + members.get("ssrc");
+            StreamState state = streams.get(key);
+            if (state == null) {
+                state = new StreamState();
+                state.kind = (String) kind;
+                state.direction = direction;
+                streams.put(key, state);
+            }
+            state.seen = true;
+            state.trackId = (String) members.get("trackIdentifier");
+            state.mid = (String) members.get("mid");
+
+            long packets = getLong(members, packetsMember);
+            long bytes = getLong(members, bytesMember);
+            boolean progress = state.packets >= 0 && (packets > state.packets || bytes > state.bytes);
+            boolean firstSample = state.packets < 0;
+            state.packets = packets;
+            state.bytes = bytes;
+
+            if (firstSample) {
+                // A stream is only watched once it had some media.
+                state.lastProgressTime = packets > 0 ? now : 0;
+                continue;
+            }
+
+            if (progress) {
+                if (state.stalled) {
+                    state.stalled = false;
+                    emitEvent("mediaFlowResumed", key, state, now - state.lastProgressTime);
+                }
+                state.lastProgressTime = now;
+            } else if (!state.stalled && state.lastProgressTime > 0
+                    && now - state.lastProgressTime >= stallThresholdMs) {
+                state.stalled = true;
+                emitEvent("mediaFlowStalled", key, state, now - state.lastProgressTime);
+            }
+        }
+
+        // Streams which went away (e.g. stopped transceivers) are forgotten.
+        Iterator<StreamState> it = streams.values().iterator();
+        while (it.hasNext()) {
+            if (!it.next().seen) {
+                it.remove();
+            }
+        }
+    }
+
+    private void emitEvent(String eventName, String key, StreamState state, long durationMs) {
+        Log.d(TAG, eventName + " " + key + " after " + durationMs + "ms");
+
+        WritableMap params = Arguments.createMap();
+        params.putInt("pcId", pco.getId());
+        params.putString("kind", state.kind);
+        params.putString("direction", state.direction);
+        params.putString("ssrc", key.substring(key.indexOf(':') + 1));
+        params.putString("trackId", state.trackId);
+        params.putString("mid", state.mid);
+        params.putDouble("duration", (double) durationMs);
+        pco.sendEvent(eventName, params);
+    }
+
+    private static long getLong(Map<String, Object> members, String name) {
+        Object value = members.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static long getPositiveLong(ReadableMap config, String key, long defaultValue) {
+        if (config.hasKey(key) && config.getType(key) == ReadableType.Number && config.getDouble(key) > 0) {
+            return (long) config.getDouble(key);
+        }
+        return defaultValue;
+    }
+
+    private static void parseValues(ReadableMap config, String key, Set<String> values, String... defaults) {
+        if (config.hasKey(key) && config.getType(key) == ReadableType.Array) {
+            ReadableArray array = config.getArray(key);
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getType(i) == ReadableType.String) {
+                    values.add(array.getString(i));
+                }
+            }
+        }
+
+        if (values.isEmpty()) {
+            for (String value : defaults) {
+                values.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+
+import org.webrtc.PeerConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Restarts ICE on the PeerConnections which opted in (with the non-standard
+ * {@code restartIceOnNetworkChange} configuration member) as soon as the
+ * default network changes, rather than waiting for JS to notice the
+ * connection going to "disconnected". A single event summarizes each change.
+ *
+ * The network is only monitored while at least one PeerConnection opted in.
+ * Accessed on the executor only, except for {@link #onNetworkChanged}.
+ */
+class NetworkChangeMonitor implements NetworkChangeSource.Listener {
+    private static final String TAG = WebRTCModule.TAG;
+
+    /**
+     * The PeerConnections whose ICE is restarted.
+     */
+    interface PeerConnections {
+        /**
+         * Whether any PeerConnection opted in.
+         */
+        boolean isAnyOptedIn();
+
+        /**
+         * Restarts ICE on the PeerConnections which opted in and are past
+         * "new" and not closed.
+         *
+         * @return the ids of the restarted PeerConnections.
+         */
+        List<Integer> restartIce();
+    }
+
+    /**
+     * Receives the summary of each network change.
+     */
+    interface EventSink {
+        void onNetworkChanged(
+                @Nullable String previousNetworkType, @Nullable String networkType, List<Integer> restartedPcIds);
+    }
+
+    private final NetworkChangeSource source;
+    private final PeerConnections peerConnections;
+    private final EventSink eventSink;
+    private final Executor executor;
+
+    private boolean started;
+    // Whether the network of the session is known yet, the first report
+    // after starting just sets it.
+    private boolean initialized;
+    @Nullable private String networkId;
+    @Nullable private String networkType;
+
+    NetworkChangeMonitor(
+            NetworkChangeSource source, PeerConnections peerConnections, EventSink eventSink, Executor executor) {
+        this.source = source;
+        this.peerConnections = peerConnections;
+        this.eventSink = eventSink;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts or stops monitoring, depending on whether any PeerConnection
+     * opted in. To be called whenever that may have changed.
+     */
+    void update() {
+        boolean needed = peerConnections.isAnyOptedIn();
+        if (needed && !started) {
+            started = true;
+            initialized = false;
+            source.start(this);
+        } else if (!needed && started) {
+            started = false;
+            source.stop();
+        }
+    }
+
+    @Override
+    public void onNetworkChanged(@Nullable String networkId, @Nullable String networkType) {
+        executor.execute(() -> handleNetworkChange(networkId, networkType));
+    }
+
+    private void handleNetworkChange(@Nullable String newNetworkId, @Nullable String newNetworkType) {
+        // Changes queued before the last PeerConnection opted out, while the
+        // monitor is being stopped, are ignored.
+        if (!started || !peerConnections.isAnyOptedIn()) {
+            return;
+        }
+
+        if (!initialized) {
+            initialized = true;
+            networkId = newNetworkId;
+            networkType = newNetworkType;
+            return;
+        }
+
+        // Compared on the network rather than its type, so switching to
+        // another Wi-Fi network restarts ICE too.
+        if (Objects.equals(networkId, newNetworkId)) {
+            networkType = newNetworkType;
+            return;
+        }
+
+        String previousNetworkType = networkType;
+        networkId = newNetworkId;
+        networkType = newNetworkType;
+        Log.d(TAG, "Network changed from " + previousNetworkType + " to " + newNetworkType);
+
+        // Without a network there is nothing to gather, the change to the
+        // next one triggers the restart.
+        List<Integer> pcIds = newNetworkId != null ? peerConnections.restartIce() : new ArrayList<>();
+        eventSink.onNetworkChanged(previousNetworkType, newNetworkType, pcIds);
+    }
+
+    /**
+     * The PeerConnections of the module.
+     */
+    static class ObserverPeerConnections implements PeerConnections {
+        private final SparseArray<PeerConnectionObserver> peerConnectionObservers;
+
+        ObserverPeerConnections(SparseArray<PeerConnectionObserver> peerConnectionObservers) {
+            this.peerConnectionObservers = peerConnectionObservers;
+        }
+
+        @Override
+        public boolean isAnyOptedIn() {
+            for (int i = 0; i < peerConnectionObservers.size(); i++) {
+                if (peerConnectionObservers.valueAt(i).isRestartIceOnNetworkChange()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<Integer> restartIce() {
+            List<Integer> pcIds = new ArrayList<>();
+            for (int i = 0; i < peerConnectionObservers.size(); i++) {
+                PeerConnectionObserver pco = peerConnectionObservers.valueAt(i);
+                PeerConnection peerConnection = pco.getPeerConnection();
+                if (!pco.isRestartIceOnNetworkChange() || peerConnection == null) {
+                    continue;
+                }
+
+                PeerConnection.PeerConnectionState state = peerConnection.connectionState();
+                if (state == PeerConnection.PeerConnectionState.NEW
+                        || state == PeerConnection.PeerConnectionState.CLOSED) {
+                    continue;
+                }
+
+                peerConnection.restartIce();
+                pcIds.add(peerConnectionObservers.keyAt(i));
+            }
+            return pcIds;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.oney.WebRTCModule;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Reports changes of the network the device uses by default. The default
+ * implementation is {@link ConnectivityNetworkChangeSource}, a different one
+ * can be set through {@link WebRTCModuleOptions#networkChangeSource}, e.g. a
+ * fake one to test connectivity changes.
+ */
+public interface NetworkChangeSource {
+    interface Listener {
+        /**
+         * Called whenever the default network changes, possibly on any
+         * thread.
+         *
+         * @param networkId identifies the new default network, so a change
+         * between two networks of the same type (e.g. a Wi-Fi handover) is
+         * told apart, or {@code null} if there is none.
+         * @param networkType the type of the new default network (one of
+         * {@code wifi}, {@code cellular}, {@code ethernet}, {@code vpn},
+         * {@code other}) or {@code null} if there is none.
+         */
+        void onNetworkChanged(@Nullable String networkId, @Nullable String networkType);
+    }
+
+    /**
+     * Starts reporting changes to the given listener. Implementations should
+     * report the current network right away.
+     */
+    void start(Listener listener);
+
+    /**
+     * Stops reporting changes, the listener is not called afterwards.
+     */
+    void stop();
+}
@@ -2,11 +2,13 @@ package com.oney.WebRTCModule;
 
 import android.util.Base64;
 import android.util.Log;
+import android.util.SparseArray;
 
 import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
@@ -17,6 +19,7 @@ import org.webrtc.MediaStream;
 import org.webrtc.MediaStreamTrack;
 import org.webrtc.PeerConnection;
 import org.webrtc.RTCStatsReport;
+import org.webrtc.RtpParameters;
 import org.webrtc.RtpReceiver;
 import org.webrtc.RtpSender;
 import org.webrtc.RtpTransceiver;
@@ -25,33 +28,122 @@ import org.webrtc.VideoTrack;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 
 class PeerConnectionObserver implements PeerConnection.Observer {
     private final static String TAG = WebRTCModule.TAG;
 
-    private final Map<String, DataChannelWrapper> dataChannels;
-    private final int id;
+    private final SparseArray<DataChannelWrapper> dataChannels; // Handle -> DataChannelWrapper
+    /**
+     * Id of PeerConnections which are not known to JS yet, see {@link PeerConnectionPool}.
+     */
+    static final int UNASSIGNED_ID = -1;
+
+    private volatile int id;
     private int transceiverNextId = 0;
 
     private PeerConnection peerConnection;
-    final Map<String, String> remoteStreamIds; // Stream ID -> React tag
-    final Map<String, MediaStream> remoteStreams; // React tag -> MediaStream
+    final Map<String, Integer> remoteStreamIds; // Stream ID -> handle
+    final SparseArray<MediaStream> remoteStreams; // Handle -> MediaStream
     final Map<String, MediaStreamTrack> remoteTracks;
+    private final StatsPoller statsPoller;
     private final VideoTrackAdapter videoTrackAdapters;
+    private final ConnectionTimeline timeline = new ConnectionTimeline();
     private final WebRTCModule webRTCModule;
 
+    // Index of the transceivers, built from a single getTransceivers() call and
+    // invalidated whenever the set of transceivers may change. getTransceivers()
+    // disposes the wrappers it returned previously, so it must only be called
+    // through here. Accessed on the executor only.
+    private List<RtpTransceiver> transceivers;
+    private final Map<String, RtpTransceiver> transceiversBySenderId = new HashMap<>();
+    private final Map<String, RtpTransceiver> transceiversByReceiverId = new HashMap<>();
+
+    // The transceivers state JS was last told about, keyed by transceiver id.
+    private final Map<String, TransceiverState> transceiverStates = new HashMap<>();
+
+    // Whether track events only carry what JS doesn't know already, see onAddTrack().
+    private boolean compactTrackEvents;
+
+    // Whether ICE is restarted natively when the default network changes, see NetworkChangeMonitor.
+    private boolean restartIceOnNetworkChange;
+
+    // Rules applied to the descriptions created by createOffer() / createAnswer(), if any.
+    private SdpTransformer sdpTransformer;
+
+    // Local candidates which are not emitted, if any. Set on the executor and
+    // read on the signaling thread.
+    private volatile IceCandidateFilter iceCandidateFilter;
+    // The SDP lines of the candidates dropped by the filter. Accessed on the executor only.
+    private final Set<String> filteredCandidateLines = new HashSet<>();
+
+    // Watches the media flow of the RTP streams, if enabled. Accessed on the executor only.
+    private MediaFlowWatchdog mediaFlowWatchdog;
+
+    // Debouncing of renegotiation needed events. Accessed on the executor only.
+    private long renegotiationNeededDebounceMs;
+    private boolean renegotiationNeededPending;
+    private int renegotiationNeededGeneration;
+    private ScheduledFuture<?> renegotiationNeededTask;
+
+    private static class TransceiverState {
+        String mid;
+        String currentDirection;
+        boolean stopped;
+        String senderParameters;
+        String receiverParameters;
+    }
+
     PeerConnectionObserver(WebRTCModule webRTCModule, int id) {
         this.webRTCModule = webRTCModule;
         this.id = id;
-        this.dataChannels = new HashMap<>();
+        this.dataChannels = new SparseArray<>();
         this.remoteStreamIds = new HashMap<>();
-        this.remoteStreams = new HashMap<>();
+        this.remoteStreams = new SparseArray<>();
         this.remoteTracks = new HashMap<>();
-        this.videoTrackAdapters = new VideoTrackAdapter(webRTCModule, id);
+        this.statsPoller = new StatsPoller(this);
+        this.videoTrackAdapters = new VideoTrackAdapter(webRTCModule, id, timeline, statsPoller);
+    }
+
+    /**
+     * Hands a pooled PeerConnection over to JS under the given id, from then
+     * on its events are emitted.
+     */
+    void assignId(int id) {
+        this.id = id;
+        videoTrackAdapters.setPeerConnectionId(id);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Sends an event about this PeerConnection, unless JS doesn't know it yet.
+     */
+    void sendEvent(String eventName, WritableMap params) {
+        if (id == UNASSIGNED_ID) {
+            Log.d(TAG, "Dropping " + eventName + " of a pooled PeerConnection");
+            return;
+        }
+        webRTCModule.sendEvent(eventName, params);
+    }
+
+    StatsPoller getStatsPoller() {
+        return statsPoller;
+    }
+
+    ConnectionTimeline getTimeline() {
+        return timeline;
     }
 
     PeerConnection getPeerConnection() {
@@ -79,14 +171,21 @@ class PeerConnectionObserver implements PeerConnection.Observer {
         }
 
         // Remove DataChannel observers
-        for (DataChannelWrapper dcw : dataChannels.values()) {
+        for (int i = 0, size = dataChannels.size(); i < size; i++) {
+            DataChannelWrapper dcw = dataChannels.valueAt(i);
             DataChannel dataChannel = dcw.getDataChannel();
             dataChannel.unregisterObserver();
+            dcw.dispose("PeerConnection disposed");
         }
 
         // At this point there should be no local MediaStreams in the associated
         // PeerConnection. Call dispose() to free all remaining resources held
         // by the PeerConnection instance (RtpReceivers, RtpSenders, etc.)
+        videoTrackAdapters.dispose();
+        statsPoller.dispose();
+        filteredCandidateLines.clear();
+        cancelRenegotiationNeeded();
+        invalidateTransceivers();
         peerConnection.dispose();
 
         remoteStreamIds.clear();
@@ -95,6 +194,98 @@ class PeerConnectionObserver implements PeerConnection.Observer {
         dataChannels.clear();
     }
 
+    /**
+     * Sets the window during which renegotiation needed events are collapsed
+     * into a single one, 0 disables debouncing.
+     */
+    void setRenegotiationNeededDebounce(long debounceMs) {
+        renegotiationNeededDebounceMs = Math.max(0, debounceMs);
+        if (renegotiationNeededDebounceMs == 0) {
+            flushRenegotiationNeeded();
+        }
+    }
+
+    void setCompactTrackEvents(boolean compactTrackEvents) {
+        this.compactTrackEvents = compactTrackEvents;
+    }
+
+    boolean isRestartIceOnNetworkChange() {
+        return restartIceOnNetworkChange;
+    }
+
+    void setRestartIceOnNetworkChange(boolean restartIceOnNetworkChange) {
+        this.restartIceOnNetworkChange = restartIceOnNetworkChange;
+    }
+
+    void setIceCandidateFilter(IceCandidateFilter iceCandidateFilter) {
+        this.iceCandidateFilter = iceCandidateFilter;
+    }
+
+    /**
+     * Enables the media flow watchdog with the given configuration, replacing
+     * the current one, or disables it if {@code config} is null.
+     */
+    void setMediaFlowWatchdog(@Nullable ReadableMap config) {
+        if (mediaFlowWatchdog != null) {
+            statsPoller.removeListener(mediaFlowWatchdog);
+            mediaFlowWatchdog = null;
+        }
+
+        if (config != null) {
+            mediaFlowWatchdog = new MediaFlowWatchdog(this, config);
+            statsPoller.addListener(mediaFlowWatchdog, mediaFlowWatchdog.getIntervalMs());
+        }
+    }
+
+    /**
+     * Removes the candidates dropped by the filter from a local description,
+     * so they don't reach JS that way either.
+     */
+    String removeFilteredCandidates(String sdp) {
+        if (filteredCandidateLines.isEmpty()) {
+            return sdp;
+        }
+
+        StringBuilder sb = new StringBuilder(sdp.length());
+        for (String line : sdp.split("\r\n")) {
+            if (!filteredCandidateLines.contains(line)) {
+                sb.append(line).append("\r\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Forgets the filtered candidates which are no longer part of the local
+     * description, e.g. those of the previous ICE generation once a restart
+     * has been applied. The ones still in there must keep being removed.
+     */
+    void pruneFilteredCandidates() {
+        if (filteredCandidateLines.isEmpty()) {
+            return;
+        }
+
+        SessionDescription localDescription = peerConnection.getLocalDescription();
+        if (localDescription == null) {
+            filteredCandidateLines.clear();
+            return;
+        }
+
+        Set<String> lines = new HashSet<>(Arrays.asList(localDescription.description.split("\r\n")));
+        filteredCandidateLines.retainAll(lines);
+    }
+
+    void setSdpTransformer(SdpTransformer sdpTransformer) {
+        this.sdpTransformer = sdpTransformer;
+    }
+
+    /**
+     * Applies the SDP transform rules, if any, to a created description.
+     */
+    String transformSdp(String sdp) {
+        return sdpTransformer != null ? sdpTransformer.transform(sdp) : sdp;
+    }
+
     public synchronized int getNextTransceiverId() {
         return transceiverNextId++;
     }
@@ -104,6 +295,7 @@ class PeerConnectionObserver implements PeerConnection.Observer {
             return null;
         }
 
+        invalidateTransceivers();
         return peerConnection.addTransceiver(mediaType, init);
     }
 
@@ -112,34 +304,151 @@ class PeerConnectionObserver implements PeerConnection.Observer {
             return null;
         }
 
+        invalidateTransceivers();
         return peerConnection.addTransceiver(track, init);
     }
 
-    RtpSender getSender(String id) {
-        if (this.peerConnection == null) {
+    RtpSender addTrack(MediaStreamTrack track, List<String> streamIds) {
+        if (peerConnection == null) {
             return null;
         }
 
-        for (RtpSender sender : this.peerConnection.getSenders()) {
-            if (sender.id().equals(id)) {
-                return sender;
+        invalidateTransceivers();
+        return peerConnection.addTrack(track, streamIds);
+    }
+
+    /**
+     * Returns the (cached) transceivers of the PeerConnection.
+     */
+    List<RtpTransceiver> getTransceivers() {
+        if (peerConnection == null) {
+            return Collections.emptyList();
+        }
+
+        if (transceivers == null) {
+            transceivers = new ArrayList<>(peerConnection.getTransceivers());
+            for (RtpTransceiver transceiver : transceivers) {
+                transceiversBySenderId.put(transceiver.getSender().id(), transceiver);
+                transceiversByReceiverId.put(transceiver.getReceiver().id(), transceiver);
             }
         }
 
-        return null;
+        return transceivers;
+    }
+
+    /**
+     * Drops the transceivers index, it gets rebuilt upon the next lookup. Must
+     * be called after any operation which may add or remove transceivers.
+     */
+    void invalidateTransceivers() {
+        transceivers = null;
+        transceiversBySenderId.clear();
+        transceiversByReceiverId.clear();
+    }
+
+    /**
+     * Serializes the state of the transceivers which changed since the last
+     * call, for JS to update its transceivers after an SDP
+     * negotiation / renegotiation. Transceivers which didn't change are left
+     * out, and so are the RTP parameters which didn't change.
+     */
+    ReadableArray getTransceiversInfo() {
+        WritableArray transceiverUpdates = Arguments.createArray();
+        List<RtpTransceiver> currentTransceivers = getTransceivers();
+        Map<String, TransceiverState> newStates = new HashMap<>();
+
+        for (RtpTransceiver transceiver : currentTransceivers) {
+            String transceiverId = transceiver.getSender().id();
+            RtpTransceiver.RtpTransceiverDirection direction = transceiver.getCurrentDirection();
+
+            TransceiverState state = new TransceiverState();
+            state.mid = transceiver.getMid();
+            state.currentDirection = direction != null ? SerializeUtils.serializeDirection(direction) : null;
+            state.stopped = transceiver.isStopped();
+            RtpParameters senderParameters = transceiver.getSender().getParameters();
+            RtpParameters receiverParameters = transceiver.getReceiver().getParameters();
+            state.senderParameters = SerializeUtils.fingerprintRtpParameters(senderParameters);
+            state.receiverParameters = SerializeUtils.fingerprintRtpParameters(receiverParameters);
+            newStates.put(transceiverId, state);
+
+            TransceiverState oldState = transceiverStates.get(transceiverId);
+            boolean senderParametersChanged =
+                    oldState == null || !oldState.senderParameters.equals(state.senderParameters);
+            boolean receiverParametersChanged =
+                    oldState == null || !oldState.receiverParameters.equals(state.receiverParameters);
+
+            if (oldState != null && !senderParametersChanged && !receiverParametersChanged
+                    && Objects.equals(oldState.mid, state.mid)
+                    && Objects.equals(oldState.currentDirection, state.currentDirection)
+                    && oldState.stopped == state.stopped) {
+                continue;
+            }
+
+            WritableMap transceiverUpdate = Arguments.createMap();
+            if (state.currentDirection != null) {
+                transceiverUpdate.putString("currentDirection", state.currentDirection);
+            }
+            transceiverUpdate.putString("transceiverId", transceiverId);
+            transceiverUpdate.putString("mid", state.mid);
+            transceiverUpdate.putBoolean("isStopped", state.stopped);
+            if (senderParametersChanged) {
+                transceiverUpdate.putMap(
+                        "senderRtpParameters", SerializeUtils.serializeRtpParameters(senderParameters));
+            }
+            if (receiverParametersChanged) {
+                transceiverUpdate.putMap(
+                        "receiverRtpParameters", SerializeUtils.serializeRtpParameters(receiverParameters));
+            }
+            transceiverUpdates.pushMap(transceiverUpdate);
+        }
+
+        // This also drops the transceivers which are gone.
+        transceiverStates.clear();
+        transceiverStates.putAll(newStates);
+
+        return transceiverUpdates;
     }
 
-    RtpTransceiver getTransceiver(String id) {
-        if (this.peerConnection == null) {
+    /**
+     * Makes the next {@link #getTransceiversInfo()} report the given
+     * transceiver in full, e.g. because JS updated it through other means.
+     */
+    void forgetTransceiverState(String transceiverId) {
+        transceiverStates.remove(transceiverId);
+    }
+
+    RtpSender getSender(String id) {
+        RtpTransceiver transceiver = getTransceiver(id);
+        return transceiver != null ? transceiver.getSender() : null;
+    }
+
+    RtpReceiver getReceiver(String id) {
+        RtpTransceiver transceiver = lookupTransceiver(transceiversByReceiverId, id);
+        return transceiver != null ? transceiver.getReceiver() : null;
+    }
+
+    RtpTransceiver getTransceiver(String senderId) {
+        return lookupTransceiver(transceiversBySenderId, senderId);
+    }
+
+    private RtpTransceiver lookupTransceiver(Map<String, RtpTransceiver> index, String id) {
+        if (peerConnection == null) {
             return null;
         }
 
-        for (RtpTransceiver transceiver : this.peerConnection.getTransceivers()) {
-            if (transceiver.getSender().id().equals(id)) {
-                return transceiver;
-            }
+        boolean fresh = transceivers == null;
+        getTransceivers();
+        RtpTransceiver transceiver = index.get(id);
+
+        // Transceivers may be created by libwebrtc itself while applying a
+        // remote description, rebuild the index once before giving up.
+        if (transceiver == null && !fresh) {
+            invalidateTransceivers();
+            getTransceivers();
+            transceiver = index.get(id);
         }
-        return null;
+
+        return transceiver;
     }
 
     WritableMap createDataChannel(String label, ReadableMap config) {
@@ -164,13 +473,21 @@ class PeerConnectionObserver implements PeerConnection.Observer {
                 init.negotiated = config.getBoolean("negotiated");
             }
         }
+        // The remote end of a channel it announces can't see the protocol, it
+        // would get the raw frames, so framing requires negotiated channels.
+        DataChannelFraming framing = DataChannelFraming.forProtocol(init.protocol);
+        if (framing != null && !init.negotiated) {
+            Log.w(TAG, "createDataChannel() framing protocol tokens require a negotiated channel");
+            return null;
+        }
         DataChannel dataChannel = peerConnection.createDataChannel(label, init);
         if (dataChannel == null) {
             return null;
         }
-        final String reactTag = UUID.randomUUID().toString();
-        DataChannelWrapper dcw = new DataChannelWrapper(webRTCModule, id, reactTag, dataChannel);
-        dataChannels.put(reactTag, dcw);
+        final int handle = webRTCModule.allocateHandle();
+        final String reactTag = String.valueOf(handle);
+        DataChannelWrapper dcw = new DataChannelWrapper(webRTCModule, id, reactTag, dataChannel, framing);
+        dataChannels.put(handle, dcw);
         dataChannel.registerObserver(dcw);
 
         WritableMap info = Arguments.createMap();
@@ -188,7 +505,7 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     }
 
     void dataChannelClose(String reactTag) {
-        DataChannelWrapper dcw = dataChannels.get(reactTag);
+        DataChannelWrapper dcw = dataChannels.get(WebRTCModule.parseHandle(reactTag));
         if (dcw == null) {
             Log.d(TAG, "dataChannelClose() dataChannel is null");
             return;
@@ -199,7 +516,8 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     }
 
     void dataChannelDispose(String reactTag) {
-        DataChannelWrapper dcw = dataChannels.get(reactTag);
+        int handle = WebRTCModule.parseHandle(reactTag);
+        DataChannelWrapper dcw = dataChannels.get(handle);
         if (dcw == null) {
             Log.d(TAG, "dataChannelDispose() dataChannel is null");
             return;
@@ -207,16 +525,59 @@ class PeerConnectionObserver implements PeerConnection.Observer {
 
         DataChannel dataChannel = dcw.getDataChannel();
         dataChannel.unregisterObserver();
-        dataChannels.remove(reactTag);
+        dcw.dispose("DataChannel disposed");
+        dataChannels.remove(handle);
     }
 
-    void dataChannelSend(String reactTag, String data, String type) {
-        DataChannelWrapper dcw = dataChannels.get(reactTag);
+    void dataChannelStartFileSink(String reactTag, String path, ReadableMap options, Promise promise) {
+        DataChannelWrapper dcw = dataChannels.get(WebRTCModule.parseHandle(reactTag));
+        if (dcw == null) {
+            Log.d(TAG, "dataChannelStartFileSink() dataChannel is null");
+            promise.reject(new Exception("DataChannel not found"));
+            return;
+        }
+
+        long expectedSize = -1;
+        long progressInterval = DataChannelFileSink.DEFAULT_PROGRESS_INTERVAL;
+        if (options != null) {
+            if (options.hasKey("expectedSize")) {
+                expectedSize = (long) options.getDouble("expectedSize");
+            }
+            if (options.hasKey("progressInterval")) {
+                progressInterval = (long) options.getDouble("progressInterval");
+            }
+        }
+
+        DataChannelFileSink sink = new DataChannelFileSink(
+                webRTCModule, id, reactTag, path, expectedSize, progressInterval, promise);
+        sink.open();
+        dcw.setFileSink(sink);
+    }
+
+    void dataChannelStopFileSink(String reactTag) {
+        DataChannelWrapper dcw = dataChannels.get(WebRTCModule.parseHandle(reactTag));
+        if (dcw == null) {
+            Log.d(TAG, "dataChannelStopFileSink() dataChannel is null");
+            return;
+        }
+
+        dcw.setFileSink(null);
+    }
+
+    /**
+     * Sends a message on the given DataChannel.
+     *
+     * @param queuedAtNs the {@link System#nanoTime()} at which the send was
+     * requested by JS, used to measure the time spent in the executor queue.
+     */
+    void dataChannelSend(String reactTag, String data, String type, long queuedAtNs) {
+        DataChannelWrapper dcw = dataChannels.get(WebRTCModule.parseHandle(reactTag));
         if (dcw == null) {
             Log.d(TAG, "dataChannelSend() dataChannel is null");
             return;
         }
 
+        long encodeStart = System.nanoTime();
         byte[] byteArray;
         if (type.equals("text")) {
             byteArray = data.getBytes(StandardCharsets.UTF_8);
@@ -226,9 +587,37 @@ class PeerConnectionObserver implements PeerConnection.Observer {
             Log.e(TAG, "Unsupported data type: " + type);
             return;
         }
-        ByteBuffer byteBuffer = ByteBuffer.wrap(byteArray);
-        DataChannel.Buffer buffer = new DataChannel.Buffer(byteBuffer, type.equals("binary"));
-        dcw.getDataChannel().send(buffer);
+        long encodeTime = System.nanoTime() - encodeStart;
+        boolean binary = type.equals("binary");
+        DataChannel dataChannel = dcw.getDataChannel();
+        DataChannelFraming framing = dcw.getFraming();
+        boolean sent;
+        if (framing != null) {
+            sent = framing.send(byteArray, binary, frame -> dataChannel.send(new DataChannel.Buffer(frame, true)));
+        } else {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(byteArray);
+            DataChannel.Buffer buffer = new DataChannel.Buffer(byteBuffer, binary);
+            sent = dataChannel.send(buffer);
+        }
+
+        if (!sent) {
+            Log.w(TAG, "dataChannelSend() failed to send a message of " + byteArray.length + " bytes");
+        } else {
+            DataChannelMetrics metrics = dcw.getMetrics();
+            metrics.onMessageSent(byteArray.length, encodeStart - queuedAtNs, encodeTime);
+            metrics.onBufferedAmount(dataChannel.bufferedAmount());
+        }
+    }
+
+    @Nullable
+    WritableMap dataChannelGetMetrics(String reactTag) {
+        DataChannelWrapper dcw = dataChannels.get(WebRTCModule.parseHandle(reactTag));
+        if (dcw == null) {
+            Log.d(TAG, "dataChannelGetMetrics() dataChannel is null");
+            return null;
+        }
+
+        return dcw.getMetrics().toWritableMap();
     }
 
     void getStats(Promise promise) {
@@ -236,14 +625,7 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     }
 
     public void receiverGetStats(String receiverId, Promise promise) {
-        RtpReceiver targetReceiver = null;
-        for (RtpReceiver r : peerConnection.getReceivers()) {
-            if (r.id().equals(receiverId)) {
-                targetReceiver = r;
-                break;
-            }
-        }
-
+        RtpReceiver targetReceiver = getReceiver(receiverId);
         if (targetReceiver == null) {
             Log.w(TAG, "receiverGetStats(): Receiver ID " + receiverId + " not found");
             promise.resolve(StringUtils.statsToJSON(new RTCStatsReport(0, new HashMap<>())));
@@ -255,14 +637,7 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     }
 
     public void senderGetStats(String senderId, Promise promise) {
-        RtpSender targetSender = null;
-        for (RtpSender s : peerConnection.getSenders()) {
-            if (s.id().equals(senderId)) {
-                targetSender = s;
-                break;
-            }
-        }
-
+        RtpSender targetSender = getSender(senderId);
         if (targetSender == null) {
             Log.w(TAG, "senderGetStats(): Sender ID " + senderId + " not found");
             promise.resolve(StringUtils.statsToJSON(new RTCStatsReport(0, new HashMap<>())));
@@ -276,6 +651,14 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     @Override
     public void onIceCandidate(final IceCandidate candidate) {
         Log.d(TAG, "onIceCandidate");
+        timeline.mark(ConnectionTimeline.FIRST_CANDIDATE);
+
+        IceCandidateFilter filter = iceCandidateFilter;
+        if (filter != null && filter.rejects(candidate)) {
+            Log.d(TAG, "onIceCandidate() candidate filtered out");
+            ThreadUtils.runOnExecutor(() -> { filteredCandidateLines.add("a=" + candidate.sdp); });
+            return;
+        }
 
         ThreadUtils.runOnExecutor(() -> {
             WritableMap params = Arguments.createMap();
@@ -294,11 +677,11 @@ class PeerConnectionObserver implements PeerConnection.Observer {
             // Can happen when doing a rollback.
             if (newSdp != null) {
                 newSdpMap.putString("type", newSdp.type.canonicalForm());
-                newSdpMap.putString("sdp", newSdp.description);
+                newSdpMap.putString("sdp", removeFilteredCandidates(newSdp.description));
             }
             params.putMap("sdp", newSdpMap);
 
-            webRTCModule.sendEvent("peerConnectionGotICECandidate", params);
+            sendEvent("peerConnectionGotICECandidate", params);
         });
     }
 
@@ -307,22 +690,40 @@ class PeerConnectionObserver implements PeerConnection.Observer {
 
     @Override
     public void onIceConnectionChange(PeerConnection.IceConnectionState iceConnectionState) {
+        if (iceConnectionState == PeerConnection.IceConnectionState.CHECKING) {
+            timeline.mark(ConnectionTimeline.ICE_CHECKING);
+        } else if (iceConnectionState == PeerConnection.IceConnectionState.CONNECTED) {
+            timeline.mark(ConnectionTimeline.ICE_CONNECTED);
+        }
+
         ThreadUtils.runOnExecutor(() -> {
             WritableMap params = Arguments.createMap();
             params.putInt("pcId", id);
             params.putString("iceConnectionState", iceConnectionStateString(iceConnectionState));
-            webRTCModule.sendEvent("peerConnectionIceConnectionChanged", params);
+            sendEvent("peerConnectionIceConnectionChanged", params);
         });
     }
 
     @Override
     public void onConnectionChange(PeerConnection.PeerConnectionState peerConnectionState) {
+        // ICE and DTLS are connected, the first time around the timeline is
+        // sent to JS.
+        final boolean established = peerConnectionState == PeerConnection.PeerConnectionState.CONNECTED
+                && timeline.mark(ConnectionTimeline.CONNECTED);
+
         ThreadUtils.runOnExecutor(() -> {
             WritableMap params = Arguments.createMap();
             params.putInt("pcId", id);
             params.putString("connectionState", peerConnectionStateString(peerConnectionState));
 
-            webRTCModule.sendEvent("peerConnectionStateChanged", params);
+            sendEvent("peerConnectionStateChanged", params);
+
+            if (established) {
+                WritableMap timelineParams = Arguments.createMap();
+                timelineParams.putInt("pcId", id);
+                timelineParams.putMap("timeline", timeline.toWritableMap());
+                sendEvent("peerConnectionTimeline", timelineParams);
+            }
         });
     }
 
@@ -332,6 +733,9 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     @Override
     public void onIceGatheringChange(PeerConnection.IceGatheringState iceGatheringState) {
         Log.d(TAG, "onIceGatheringChange" + iceGatheringState.name());
+        if (iceGatheringState == PeerConnection.IceGatheringState.COMPLETE) {
+            timeline.mark(ConnectionTimeline.GATHERING_COMPLETE);
+        }
 
         ThreadUtils.runOnExecutor(() -> {
             WritableMap params = Arguments.createMap();
@@ -345,20 +749,23 @@ class PeerConnectionObserver implements PeerConnection.Observer {
                 // Can happen when doing a rollback.
                 if (newSdp != null) {
                     newSdpMap.putString("type", newSdp.type.canonicalForm());
-                    newSdpMap.putString("sdp", newSdp.description);
+                    newSdpMap.putString("sdp", removeFilteredCandidates(newSdp.description));
                 }
                 params.putMap("sdp", newSdpMap);
             }
-            webRTCModule.sendEvent("peerConnectionIceGatheringChanged", params);
+            sendEvent("peerConnectionIceGatheringChanged", params);
         });
     }
 
     @Override
     public void onDataChannel(DataChannel dataChannel) {
         ThreadUtils.runOnExecutor(() -> {
-            final String reactTag = UUID.randomUUID().toString();
-            DataChannelWrapper dcw = new DataChannelWrapper(webRTCModule, id, reactTag, dataChannel);
-            dataChannels.put(reactTag, dcw);
+            final int handle = webRTCModule.allocateHandle();
+            final String reactTag = String.valueOf(handle);
+            // The protocol of remotely announced channels is not available, so no
+            // framing, which is why it is only allowed on negotiated channels.
+            DataChannelWrapper dcw = new DataChannelWrapper(webRTCModule, id, reactTag, dataChannel, null);
+            dataChannels.put(handle, dcw);
             dataChannel.registerObserver(dcw);
 
             WritableMap info = Arguments.createMap();
@@ -380,26 +787,69 @@ class PeerConnectionObserver implements PeerConnection.Observer {
             params.putInt("pcId", id);
             params.putMap("dataChannel", info);
 
-            webRTCModule.sendEvent("peerConnectionDidOpenDataChannel", params);
+            sendEvent("peerConnectionDidOpenDataChannel", params);
         });
     }
 
     @Override
     public void onRenegotiationNeeded() {
         ThreadUtils.runOnExecutor(() -> {
-            WritableMap params = Arguments.createMap();
-            params.putInt("pcId", id);
-            webRTCModule.sendEvent("peerConnectionOnRenegotiationNeeded", params);
+            renegotiationNeededPending = true;
+
+            if (renegotiationNeededDebounceMs == 0) {
+                flushRenegotiationNeeded();
+                return;
+            }
+
+            // (Re)start the debounce window.
+            if (renegotiationNeededTask != null) {
+                renegotiationNeededTask.cancel(false);
+            }
+            final int generation = ++renegotiationNeededGeneration;
+            renegotiationNeededTask = ThreadUtils.scheduleOnExecutor(() -> {
+                if (generation == renegotiationNeededGeneration) {
+                    flushRenegotiationNeeded();
+                }
+            }, renegotiationNeededDebounceMs);
         });
     }
 
+    /**
+     * Emits the pending renegotiation needed event, if any, right away.
+     */
+    private void flushRenegotiationNeeded() {
+        if (!renegotiationNeededPending) {
+            return;
+        }
+
+        cancelRenegotiationNeeded();
+
+        WritableMap params = Arguments.createMap();
+        params.putInt("pcId", id);
+        sendEvent("peerConnectionOnRenegotiationNeeded", params);
+    }
+
+    private void cancelRenegotiationNeeded() {
+        renegotiationNeededPending = false;
+        renegotiationNeededGeneration++;
+        if (renegotiationNeededTask != null) {
+            renegotiationNeededTask.cancel(false);
+            renegotiationNeededTask = null;
+        }
+    }
+
     @Override
     public void onSignalingChange(PeerConnection.SignalingState signalingState) {
         ThreadUtils.runOnExecutor(() -> {
             WritableMap params = Arguments.createMap();
             params.putInt("pcId", id);
             params.putString("signalingState", signalingStateString(signalingState));
-            webRTCModule.sendEvent("peerConnectionSignalingStateChanged", params);
+            sendEvent("peerConnectionSignalingStateChanged", params);
+
+            // Back to stable, there is no point in holding back a renegotiation.
+            if (signalingState == PeerConnection.SignalingState.STABLE) {
+                flushRenegotiationNeeded();
+            }
         });
     }
 
@@ -410,16 +860,10 @@ class PeerConnectionObserver implements PeerConnection.Observer {
     @Override
     public void onAddTrack(final RtpReceiver receiver, final MediaStream[] mediaStreams) {
         Log.d(TAG, "onAddTrack");
+        timeline.mark(ConnectionTimeline.FIRST_TRACK);
 
         ThreadUtils.runOnExecutor(() -> {
-            RtpTransceiver transceiver = null;
-            for (RtpTransceiver t : this.peerConnection.getTransceivers()) {
-                if (Objects.equals(t.getReceiver().id(), receiver.id())) {
-                    transceiver = t;
-                    break;
-                }
-            }
-
+            RtpTransceiver transceiver = lookupTransceiver(transceiversByReceiverId, receiver.id());
             if (transceiver == null) {
                 return;
             }
@@ -443,26 +887,54 @@ class PeerConnectionObserver implements PeerConnection.Observer {
 
             for (MediaStream stream : mediaStreams) {
                 // Getting the streamReactTag
-                String streamReactTag = remoteStreamIds.get(stream.getId());
+                Integer streamHandle = remoteStreamIds.get(stream.getId());
 
-                if (streamReactTag == null) {
-                    streamReactTag = UUID.randomUUID().toString();
-                    remoteStreamIds.put(stream.getId(), streamReactTag);
+                if (streamHandle == null) {
+                    streamHandle = webRTCModule.allocateHandle();
+                    remoteStreamIds.put(stream.getId(), streamHandle);
                 }
 
                 // Make sure the stored stream is updated in case we get a new reference.
-                remoteStreams.put(streamReactTag, stream);
-
-                streams.pushMap(SerializeUtils.serializeStream(id, streamReactTag, stream));
+                remoteStreams.put(streamHandle, stream);
+
+                String streamReactTag = String.valueOf(streamHandle);
+                if (compactTrackEvents) {
+                    WritableMap streamInfo = Arguments.createMap();
+                    streamInfo.putString("streamId", stream.getId());
+                    streamInfo.putString("streamReactTag", streamReactTag);
+                    streams.pushMap(streamInfo);
+                } else {
+                    streams.pushMap(SerializeUtils.serializeStream(id, streamReactTag, stream));
+                }
             }
 
             params.putArray("streams", streams);
-            params.putMap("receiver", SerializeUtils.serializeReceiver(id, receiver));
             params.putInt("transceiverOrder", getNextTransceiverId());
-            params.putMap("transceiver", SerializeUtils.serializeTransceiver(id, transceiver));
             params.putInt("pcId", this.id);
 
-            webRTCModule.sendEvent("peerConnectionOnTrack", params);
+            if (compactTrackEvents) {
+                // JS already knows the receiver, the transceiver and their RTP parameters
+                // (from the setRemoteDescription result), it looks them up by ID. Only the
+                // state which may have changed is sent along.
+                WritableMap receiverInfo = Arguments.createMap();
+                receiverInfo.putString("id", receiver.id());
+                params.putMap("receiver", receiverInfo);
+
+                WritableMap transceiverInfo = Arguments.createMap();
+                transceiverInfo.putString("id", transceiver.getSender().id());
+                transceiverInfo.putString("mid", transceiver.getMid());
+                transceiverInfo.putString("direction", SerializeUtils.serializeDirection(transceiver.getDirection()));
+                RtpTransceiver.RtpTransceiverDirection currentDirection = transceiver.getCurrentDirection();
+                if (currentDirection != null) {
+                    transceiverInfo.putString("currentDirection", SerializeUtils.serializeDirection(currentDirection));
+                }
+                params.putMap("transceiver", transceiverInfo);
+            } else {
+                params.putMap("receiver", SerializeUtils.serializeReceiver(id, receiver));
+                params.putMap("transceiver", SerializeUtils.serializeTransceiver(id, transceiver));
+            }
+
+            sendEvent("peerConnectionOnTrack", params);
         });
     }
 
@@ -485,7 +957,7 @@ class PeerConnectionObserver implements PeerConnection.Observer {
             params.putInt("pcId", this.id);
             params.putString("receiverId", receiver.id());
 
-            webRTCModule.sendEvent("peerConnectionOnRemoveTrack", params);
+            sendEvent("peerConnectionOnRemoveTrack", params);
         });
     };
 
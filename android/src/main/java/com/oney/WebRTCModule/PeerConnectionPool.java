@@ -0,0 +1,174 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.webrtc.PeerConnection;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Opt-in pool of "warm" PeerConnections, created ahead of time from a template
+ * configuration so that certificate generation and (with a non-zero
+ * {@code iceCandidatePoolSize} in the template) ICE gathering are already done
+ * when the application creates a PeerConnection with the same configuration.
+ *
+ * Pooled PeerConnections have no id and their observer doesn't emit events
+ * until they are handed out. Idle ones are replaced after a TTL, so their
+ * pre-gathered candidates (and TURN allocations) don't go stale.
+ *
+ * Accessed on the executor only.
+ */
+class PeerConnectionPool {
+    private static final String TAG = WebRTCModule.TAG;
+
+    private static class Entry {
+        final PeerConnectionObserver observer;
+        ScheduledFuture<?> expiryTask;
+
+        Entry(PeerConnectionObserver observer) {
+            this.observer = observer;
+        }
+    }
+
+    private final WebRTCModule webRTCModule;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    @Nullable private PeerConnection.RTCConfiguration template;
+    private Map<String, Object> templateKey;
+    private int size;
+    private long ttlMs;
+
+    // Bumped on every configure() call, so fill tasks queued for a previous
+    // configuration become no-ops.
+    private int generation;
+
+    PeerConnectionPool(WebRTCModule webRTCModule) {
+        this.webRTCModule = webRTCModule;
+    }
+
+    /**
+     * (Re)configures the pool. Existing entries are disposed and new ones are
+     * created in the background, one executor task at a time.
+     *
+     * @param configuration the configuration of the pooled PeerConnections,
+     * as coming from JS. Only PeerConnections created with an equal one get a
+     * pooled instance.
+     * @param template the parsed form of {@code configuration}.
+     * @param size how many PeerConnections to keep, 0 disables the pool.
+     * @param ttlMs after how long an idle entry is replaced, 0 for never.
+     */
+    void configure(@Nullable ReadableMap configuration, PeerConnection.RTCConfiguration template, int size,
+            long ttlMs) {
+        clear();
+
+        this.template = template;
+        this.templateKey = configurationKey(configuration);
+        this.size = Math.max(0, size);
+        this.ttlMs = Math.max(0, ttlMs);
+        generation++;
+
+        scheduleFill();
+    }
+
+    /**
+     * Takes a warm PeerConnection out of the pool if the given configuration
+     * matches the template, and assigns it the given id.
+     *
+     * @return the observer of the PeerConnection or {@code null} if there is
+     * no matching PeerConnection available.
+     */
+    @Nullable
+    PeerConnectionObserver acquire(@Nullable ReadableMap configuration, int id) {
+        if (entries.isEmpty() || !templateKey.equals(configurationKey(configuration))) {
+            return null;
+        }
+
+        Entry entry = entries.poll();
+        cancelExpiry(entry);
+        entry.observer.assignId(id);
+        Log.d(TAG, "PeerConnectionPool: handing out a warm PeerConnection as " + id);
+
+        scheduleFill();
+
+        return entry.observer;
+    }
+
+    /**
+     * Disposes all the pooled PeerConnections.
+     */
+    void clear() {
+        generation++;
+
+        for (Entry entry : entries) {
+            cancelExpiry(entry);
+            disposeObserver(entry.observer);
+        }
+        entries.clear();
+    }
+
+    private void scheduleFill() {
+        final int fillGeneration = generation;
+        ThreadUtils.runOnExecutor(() -> fill(fillGeneration));
+    }
+
+    /**
+     * Creates a single entry and schedules the creation of the next one, so
+     * other work on the executor isn't held back by a large pool.
+     */
+    private void fill(int fillGeneration) {
+        if (fillGeneration != generation || entries.size() >= size) {
+            return;
+        }
+
+        PeerConnectionObserver observer =
+                new PeerConnectionObserver(webRTCModule, PeerConnectionObserver.UNASSIGNED_ID);
+        PeerConnection peerConnection = webRTCModule.getFactory().createPeerConnection(template, observer);
+        if (peerConnection == null) {
+            Log.w(TAG, "PeerConnectionPool: failed to create a PeerConnection, giving up");
+            return;
+        }
+        observer.setPeerConnection(peerConnection);
+
+        Entry entry = new Entry(observer);
+        if (ttlMs > 0) {
+            entry.expiryTask = ThreadUtils.scheduleOnExecutor(() -> expire(entry, fillGeneration), ttlMs);
+        }
+        entries.add(entry);
+
+        scheduleFill();
+    }
+
+    private void expire(Entry entry, int expireGeneration) {
+        if (expireGeneration != generation || !entries.remove(entry)) {
+            return;
+        }
+
+        Log.d(TAG, "PeerConnectionPool: replacing an idle PeerConnection");
+        disposeObserver(entry.observer);
+        scheduleFill();
+    }
+
+    private static void cancelExpiry(Entry entry) {
+        if (entry.expiryTask != null) {
+            entry.expiryTask.cancel(false);
+            entry.expiryTask = null;
+        }
+    }
+
+    private static void disposeObserver(PeerConnectionObserver observer) {
+        observer.close();
+        observer.dispose();
+    }
+
+    private static Map<String, Object> configurationKey(@Nullable ReadableMap configuration) {
+        return configuration != null ? configuration.toHashMap() : Collections.emptyMap();
+    }
+}
@@ -0,0 +1,101 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named sets of RTCConfiguration members, selected from JS with the
+ * non-standard {@code preset} member. The members of the preset are applied
+ * first and those set explicitly in the configuration override them.
+ *
+ * Values use the same names and types as the configuration coming from JS,
+ * non-standard members such as {@code restartIceOnNetworkChange} or
+ * {@code mediaFlowWatchdog} included.
+ * Applications can register their own presets, or replace the built-in ones,
+ * before creating PeerConnections.
+ */
+public class RTCConfigurationPresets {
+    private static final String TAG = WebRTCModule.TAG;
+
+    private static final Map<String, Map<String, Object>> presets = new HashMap<>();
+
+    static {
+        // Connect as soon as possible: gather ahead of time, check candidate
+        // pairs often and give up on unwritable ones early.
+        Map<String, Object> fastConnect = new HashMap<>();
+        fastConnect.put("iceCandidatePoolSize", 1);
+        fastConnect.put("continualGatheringPolicy", "gather_continually");
+        fastConnect.put("iceCheckMinInterval", 25);
+        fastConnect.put("iceCheckIntervalWeakConnectivityMs", 100);
+        fastConnect.put("iceUnwritableTimeMs", 2000);
+        fastConnect.put("iceUnwritableMinChecks", 3);
+        fastConnect.put("presumeWritableWhenFullyRelayed", true);
+        fastConnect.put("surfaceIceCandidatesOnIceTransportTypeChanged", true);
+        presets.put("fast-connect", fastConnect);
+
+        // Wake the radio up as little as possible once connected.
+        Map<String, Object> batterySaver = new HashMap<>();
+        batterySaver.put("continualGatheringPolicy", "gather_once");
+        batterySaver.put("iceCheckIntervalStrongConnectivityMs", 5000);
+        batterySaver.put("stableWritableConnectionPingIntervalMs", 5000);
+        batterySaver.put("stunCandidateKeepaliveIntervalMs", 25000);
+        batterySaver.put("maxIPv6Networks", 1);
+        batterySaver.put("enableCpuOveruseDetection", true);
+        batterySaver.put("suspendBelowMinBitrate", true);
+        presets.put("battery-saver", batterySaver);
+
+        // Prefer the cellular network and survive handovers.
+        Map<String, Object> cellular = new HashMap<>();
+        cellular.put("networkPreference", "cellular");
+        cellular.put("continualGatheringPolicy", "gather_continually");
+        cellular.put("turnPortPrunePolicy", "keep_first_ready");
+        cellular.put("iceConnectionReceivingTimeout", 5000);
+        cellular.put("enableCpuOveruseDetection", true);
+        presets.put("cellular", cellular);
+    }
+
+    /**
+     * Registers a preset, replacing any existing one with the same name.
+     */
+    public static synchronized void register(String name, Map<String, Object> values) {
+        presets.put(name, new HashMap<>(values));
+    }
+
+    /**
+     * Applies the preset named by the {@code preset} member of the given
+     * configuration, if any.
+     *
+     * @return the merged configuration or the given one if it doesn't select
+     * a (known) preset.
+     */
+    @Nullable
+    static ReadableMap apply(@Nullable ReadableMap configuration) {
+        if (configuration == null || !configuration.hasKey("preset")
+                || configuration.getType("preset") != ReadableType.String) {
+            return configuration;
+        }
+
+        String name = configuration.getString("preset");
+        Map<String, Object> preset;
+        synchronized (RTCConfigurationPresets.class) {
+            preset = presets.get(name);
+        }
+        if (preset == null) {
+            Log.w(TAG, "Unknown RTCConfiguration preset: " + name);
+            return configuration;
+        }
+
+        WritableMap merged = Arguments.makeNativeMap(preset);
+        merged.merge(configuration);
+        return merged;
+    }
+}
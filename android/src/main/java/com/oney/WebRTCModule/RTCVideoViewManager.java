@@ -56,6 +56,21 @@ public class RTCVideoViewManager extends SimpleViewManager<WebRTCView> {
         view.setObjectFit(objectFit);
     }
 
+    /**
+     * Sets the maximum frame rate at which a specific {@link WebRTCView}
+     * renders. For more details, refer to the documentation of the
+     * {@code maxFps} property of the JavaScript counterpart of
+     * {@code WebRTCView} i.e. {@code RTCView}.
+     *
+     * @param view The {@code WebRTCView} on which the specified {@code maxFps}
+     * is to be set.
+     * @param maxFps The maximum frame rate, 0 for no limit.
+     */
+    @ReactProp(name = "maxFps", defaultFloat = 0f)
+    public void setMaxFps(WebRTCView view, float maxFps) {
+        view.setMaxFps(maxFps);
+    }
+
     @ReactProp(name = "streamURL")
     public void setStreamURL(WebRTCView view, String streamURL) {
         view.setStreamURL(streamURL);
@@ -0,0 +1,164 @@
+package com.oney.WebRTCModule;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RtpCapabilities;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the sender and receiver RTP capabilities of a
+ * {@link PeerConnectionFactory}, which are fixed for its lifetime, along with
+ * a lookup key per codec so codec preferences coming from JS can be resolved
+ * with a map lookup.
+ *
+ * The key covers the same members as
+ * {@link SerializeUtils#serializeRtpCapabilitiesCodec}, so a codec preference
+ * resolves to a codec only if it's equal to its serialized form.
+ */
+class RtpCapabilitiesCache {
+    private static class Entry {
+        final RtpCapabilities capabilities;
+        final Map<String, RtpCapabilities.CodecCapability> codecsByKey = new HashMap<>();
+
+        Entry(RtpCapabilities capabilities) {
+            this.capabilities = capabilities;
+            for (RtpCapabilities.CodecCapability codec : capabilities.codecs) {
+                // Keep the first one, in case of duplicates.
+                codecsByKey.putIfAbsent(codecKey(codec), codec);
+            }
+        }
+    }
+
+    private final PeerConnectionFactory factory;
+    private final Map<MediaStreamTrack.MediaType, Entry> senderEntries =
+            new EnumMap<>(MediaStreamTrack.MediaType.class);
+    private final Map<MediaStreamTrack.MediaType, Entry> receiverEntries =
+            new EnumMap<>(MediaStreamTrack.MediaType.class);
+
+    RtpCapabilitiesCache(PeerConnectionFactory factory) {
+        this.factory = factory;
+    }
+
+    synchronized RtpCapabilities getSenderCapabilities(MediaStreamTrack.MediaType mediaType) {
+        return getSenderEntry(mediaType).capabilities;
+    }
+
+    synchronized RtpCapabilities getReceiverCapabilities(MediaStreamTrack.MediaType mediaType) {
+        return getReceiverEntry(mediaType).capabilities;
+    }
+
+    /**
+     * Finds the sender codec matching the given codec preference.
+     */
+    @Nullable
+    synchronized RtpCapabilities.CodecCapability findSenderCodec(
+            MediaStreamTrack.MediaType mediaType, ReadableMap codecPreference) {
+        String key = codecKey(codecPreference);
+        return key != null ? getSenderEntry(mediaType).codecsByKey.get(key) : null;
+    }
+
+    /**
+     * Finds the receiver codec matching the given codec preference.
+     */
+    @Nullable
+    synchronized RtpCapabilities.CodecCapability findReceiverCodec(
+            MediaStreamTrack.MediaType mediaType, ReadableMap codecPreference) {
+        String key = codecKey(codecPreference);
+        return key != null ? getReceiverEntry(mediaType).codecsByKey.get(key) : null;
+    }
+
+    private Entry getSenderEntry(MediaStreamTrack.MediaType mediaType) {
+        Entry entry = senderEntries.get(mediaType);
+        if (entry == null) {
+            entry = new Entry(factory.getRtpSenderCapabilities(mediaType));
+            senderEntries.put(mediaType, entry);
+        }
+        return entry;
+    }
+
+    private Entry getReceiverEntry(MediaStreamTrack.MediaType mediaType) {
+        Entry entry = receiverEntries.get(mediaType);
+        if (entry == null) {
+            entry = new Entry(factory.getRtpReceiverCapabilities(mediaType));
+            receiverEntries.put(mediaType, entry);
+        }
+        return entry;
+    }
+
+    private static String codecKey(RtpCapabilities.CodecCapability codec) {
+        return codecKey(codec.mimeType,
+                (double) codec.clockRate,
+                codec.numChannels != null ? (double) codec.numChannels : null,
+                codec.parameters.isEmpty() ? null : SerializeUtils.serializeSdpParameters(codec.parameters),
+                (double) codec.preferredPayloadType);
+    }
+
+    /**
+     * Computes the key of a codec as serialized by
+     * {@link SerializeUtils#serializeRtpCapabilitiesCodec}.
+     *
+     * @return the key or {@code null} if the map has members which are not
+     * part of a serialized codec, or of the wrong type, and thus can't match
+     * any codec.
+     */
+    @Nullable
+    private static String codecKey(ReadableMap codec) {
+        ReadableMapKeySetIterator it = codec.keySetIterator();
+        while (it.hasNextKey()) {
+            switch (it.nextKey()) {
+                case "mimeType":
+                case "clockRate":
+                case "channels":
+                case "sdpFmtpLine":
+                case "payloadType":
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        if (!hasType(codec, "mimeType", ReadableType.String) || !hasType(codec, "clockRate", ReadableType.Number)
+                || !hasType(codec, "payloadType", ReadableType.Number)
+                || (codec.hasKey("channels") && !hasType(codec, "channels", ReadableType.Number))
+                || (codec.hasKey("sdpFmtpLine") && !hasType(codec, "sdpFmtpLine", ReadableType.String))) {
+            return null;
+        }
+
+        return codecKey(codec.getString("mimeType"),
+                codec.getDouble("clockRate"),
+                codec.hasKey("channels") ? codec.getDouble("channels") : null,
+                codec.hasKey("sdpFmtpLine") ? codec.getString("sdpFmtpLine") : null,
+                codec.getDouble("payloadType"));
+    }
+
+    private static String codecKey(String mimeType,
+            double clockRate,
+            @Nullable Double channels,
+            @Nullable String sdpFmtpLine,
+            double payloadType) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mimeType).append('|').append(clockRate).append('|');
+        if (channels != null) {
+            sb.append('=').append(channels.doubleValue());
+        }
+        sb.append('|');
+        if (sdpFmtpLine != null) {
+            sb.append('=').append(sdpFmtpLine);
+        }
+        sb.append('|').append(payloadType);
+        return sb.toString();
+    }
+
+    private static boolean hasType(ReadableMap map, String key, ReadableType type) {
+        return map.hasKey(key) && map.getType(key) == type;
+    }
+}
@@ -0,0 +1,781 @@
+package com.oney.WebRTCModule;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a declarative set of rules to an SDP, so that JS doesn't need to
+ * munge (potentially huge) SDPs with regular expressions on its own thread.
+ * The SDP is tokenized in a single pass into a session section and media
+ * sections, the rules then operate on the lines of the relevant sections.
+ *
+ * Supported rules, all optional. {@code kind} is a media type such as
+ * {@code audio} or {@code video}, codecs are referred to by their
+ * {@code rtpmap} encoding name, case insensitively:
+ *
+ * <pre>
+ * {
+ *   removeCodecs: { [kind]: [name, ...] },  // RTX / RED payloads go along
+ *   codecOrder: { [kind]: [name, ...] },    // moved first, in the given order
+ *   fmtp: [{ kind?, codec, parameters: { [key]: value | null } }],
+ *   bandwidth: { [kind]: kbps },            // b=AS and b=TIAS, 0 removes
+ *   removeAttributes: [{ kind?, mid?, name }],
+ *   addAttributes: [{ kind?, mid?, lines: ['a=...', ...] }]
+ * }
+ * </pre>
+ *
+ * Instances are immutable.
+ */
+class SdpTransformer {
+    private static final String TAG = WebRTCModule.TAG;
+
+    private static class FmtpRule {
+        @Nullable String kind;
+        String codec;
+        Map<String, String> parameters; // null values remove the parameter
+    }
+
+    private static class AttributesRule {
+        @Nullable String kind;
+        @Nullable String mid;
+        @Nullable String name;
+        List<String> lines;
+
+        boolean matches(MediaSection section) {
+            return (kind == null || kind.equals(section.kind)) && (mid == null || mid.equals(section.getMid()));
+        }
+    }
+
+    private final Map<String, List<String>> removeCodecs;
+    private final Map<String, List<String>> codecOrder;
+    private final List<FmtpRule> fmtp;
+    private final Map<String, Integer> bandwidth;
+    private final List<AttributesRule> removeAttributes;
+    private final List<AttributesRule> addAttributes;
+
+    /**
+     * Parses the given rules.
+     *
+     * @throws IllegalArgumentException if the rules are malformed.
+     */
+    SdpTransformer(ReadableMap rules) {
+        removeCodecs = parseCodecLists(rules, "removeCodecs");
+        codecOrder = parseCodecLists(rules, "codecOrder");
+        fmtp = parseFmtpRules(rules);
+        bandwidth = parseBandwidth(rules);
+        removeAttributes = parseAttributesRules(rules, "removeAttributes", false);
+        addAttributes = parseAttributesRules(rules, "addAttributes", true);
+    }
+
+    /**
+     * Applies the rules to the given SDP.
+     */
+    String transform(String sdp) {
+        Sdp parsed = Sdp.tokenize(sdp);
+
+        for (MediaSection section : parsed.media) {
+            List<String> names = removeCodecs.get(section.kind);
+            if (names != null) {
+                section.removeCodecs(names);
+            }
+
+            names = codecOrder.get(section.kind);
+            if (names != null) {
+                section.reorderCodecs(names);
+            }
+
+            for (FmtpRule rule : fmtp) {
+                if (rule.kind == null || rule.kind.equals(section.kind)) {
+                    section.updateFmtp(rule.codec, rule.parameters);
+                }
+            }
+
+            Integer kbps = bandwidth.get(section.kind);
+            if (kbps != null) {
+                section.setBandwidth(kbps);
+            }
+
+            for (AttributesRule rule : removeAttributes) {
+                if (rule.matches(section)) {
+                    section.removeAttribute(rule.name);
+                }
+            }
+
+            for (AttributesRule rule : addAttributes) {
+                if (rule.matches(section)) {
+                    section.lines.addAll(rule.lines);
+                }
+            }
+        }
+
+        return parsed.toString();
+    }
+
+    /**
+     * Parses the given SDP into a structured form for JS.
+     */
+    static WritableMap parse(String sdp) {
+        return Sdp.tokenize(sdp).toWritableMap();
+    }
+
+    /**
+     * A tokenized SDP: the session level lines followed by the media sections.
+     */
+    private static class Sdp {
+        final List<String> sessionLines = new ArrayList<>();
+        final List<MediaSection> media = new ArrayList<>();
+
+        static Sdp tokenize(String sdp) {
+            Sdp result = new Sdp();
+            MediaSection current = null;
+            int length = sdp.length();
+            int pos = 0;
+
+            while (pos < length) {
+                int end = sdp.indexOf('\n', pos);
+                if (end == -1) {
+                    end = length;
+                }
+                int lineEnd = end > pos && sdp.charAt(end - 1) == '\r' ? end - 1 : end;
+
+                if (lineEnd > pos) {
+                    String line = sdp.substring(pos, lineEnd);
+                    if (line.startsWith("m=")) {
+                        current = new MediaSection(line);
+                        result.media.add(current);
+                    } else if (current != null) {
+                        current.lines.add(line);
+                    } else {
+                        result.sessionLines.add(line);
+                    }
+                }
+
+                pos = end + 1;
+            }
+
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (String line : sessionLines) {
+                sb.append(line).append("\r\n");
+            }
+            for (MediaSection section : media) {
+                section.appendTo(sb);
+            }
+            return sb.toString();
+        }
+
+        WritableMap toWritableMap() {
+            WritableMap session = Arguments.createMap();
+            WritableArray sessionAttributes = Arguments.createArray();
+            WritableMap sessionBandwidth = Arguments.createMap();
+
+            for (String line : sessionLines) {
+                String value = line.substring(2);
+                switch (line.charAt(0)) {
+                    case 'v':
+                        session.putString("version", value);
+                        break;
+                    case 'o':
+                        session.putString("origin", value);
+                        break;
+                    case 's':
+                        session.putString("name", value);
+                        break;
+                    case 't':
+                        session.putString("timing", value);
+                        break;
+                    case 'b':
+                        putBandwidth(sessionBandwidth, value);
+                        break;
+                    case 'a':
+                        sessionAttributes.pushMap(serializeAttribute(value));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            session.putMap("bandwidth", sessionBandwidth);
+            session.putArray("attributes", sessionAttributes);
+
+            WritableArray mediaArray = Arguments.createArray();
+            for (MediaSection section : media) {
+                mediaArray.pushMap(section.toWritableMap());
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putMap("session", session);
+            result.putArray("media", mediaArray);
+            return result;
+        }
+    }
+
+    /**
+     * A media section, {@code lines} holds all of its lines but the m= one.
+     */
+    private static class MediaSection {
+        final String kind;
+        final String port;
+        final String protocol;
+        final List<String> payloads;
+        final List<String> lines = new ArrayList<>();
+
+        MediaSection(String mLine) {
+            String[] parts = mLine.substring(2).split(" ");
+            kind = parts.length > 0 ? parts[0] : "";
+            port = parts.length > 1 ? parts[1] : "";
+            protocol = parts.length > 2 ? parts[2] : "";
+            payloads = new ArrayList<>();
+            for (int i = 3; i < parts.length; i++) {
+                if (!parts[i].isEmpty()) {
+                    payloads.add(parts[i]);
+                }
+            }
+        }
+
+        void appendTo(StringBuilder sb) {
+            sb.append("m=").append(kind).append(' ').append(port).append(' ').append(protocol);
+            for (String pt : payloads) {
+                sb.append(' ').append(pt);
+            }
+            sb.append("\r\n");
+            for (String line : lines) {
+                sb.append(line).append("\r\n");
+            }
+        }
+
+        @Nullable
+        String getMid() {
+            for (String line : lines) {
+                if (line.startsWith("a=mid:")) {
+                    return line.substring(6);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the encoding name (lowercase) of each payload type, from the
+         * rtpmap lines.
+         */
+        Map<String, String> getCodecNames() {
+            Map<String, String> names = new HashMap<>();
+            for (String line : lines) {
+                if (line.startsWith("a=rtpmap:")) {
+                    int space = line.indexOf(' ');
+                    int slash = line.indexOf('/', space);
+                    if (space != -1) {
+                        String pt = line.substring(9, space);
+                        String name = line.substring(space + 1, slash != -1 ? slash : line.length());
+                        names.put(pt, name.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return names;
+        }
+
+        /**
+         * Returns the payload type each dependent payload type is associated
+         * with: RTX ones through their {@code apt} parameter, RED ones (e.g.
+         * {@code a=fmtp:63 111/111}) through the first redundant encoding.
+         */
+        Map<String, String> getAssociations(Map<String, String> codecNames) {
+            Map<String, String> associations = new HashMap<>();
+            for (String line : lines) {
+                if (line.startsWith("a=fmtp:")) {
+                    int space = line.indexOf(' ');
+                    if (space == -1) {
+                        continue;
+                    }
+                    String pt = line.substring(7, space);
+                    String value = line.substring(space + 1);
+                    String primary = null;
+                    if ("rtx".equals(codecNames.get(pt))) {
+                        primary = parseFmtpParameters(value).get("apt");
+                    } else if ("red".equals(codecNames.get(pt)) && value.indexOf('=') == -1) {
+                        primary = value.split("/")[0].trim();
+                    }
+                    if (primary != null && !primary.isEmpty() && !primary.equals(pt)) {
+                        associations.put(pt, primary);
+                    }
+                }
+            }
+            return associations;
+        }
+
+        void removeCodecs(List<String> names) {
+            Map<String, String> codecNames = getCodecNames();
+            Set<String> removed = new HashSet<>();
+            for (String pt : payloads) {
+                String name = codecNames.get(pt);
+                if (name != null && names.contains(name)) {
+                    removed.add(pt);
+                }
+            }
+            Map<String, String> associations = getAssociations(codecNames);
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Map.Entry<String, String> entry : associations.entrySet()) {
+                    if (removed.contains(entry.getValue()) && removed.add(entry.getKey())) {
+                        changed = true;
+                    }
+                }
+            }
+
+            if (removed.isEmpty()) {
+                return;
+            }
+            if (removed.size() >= payloads.size()) {
+                Log.w(TAG, "SdpTransformer: not removing all the codecs of a " + kind + " section");
+                return;
+            }
+
+            payloads.removeAll(removed);
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                String pt = getPayloadTypeOfLine(it.next());
+                if (pt != null && removed.contains(pt)) {
+                    it.remove();
+                }
+            }
+        }
+
+        /**
+         * Moves the given codecs first, each one followed by its RTX / RED
+         * payloads, so they stay together.
+         */
+        void reorderCodecs(List<String> names) {
+            Map<String, String> codecNames = getCodecNames();
+            Map<String, String> associations = getAssociations(codecNames);
+            List<String> first = new ArrayList<>();
+            for (String name : names) {
+                for (String pt : payloads) {
+                    if (name.equals(codecNames.get(pt))) {
+                        addWithAssociated(pt, associations, first);
+                    }
+                }
+            }
+
+            List<String> reordered = new ArrayList<>(first);
+            for (String pt : payloads) {
+                if (!first.contains(pt)) {
+                    reordered.add(pt);
+                }
+            }
+            payloads.clear();
+            payloads.addAll(reordered);
+        }
+
+        private void addWithAssociated(String pt, Map<String, String> associations, List<String> out) {
+            if (out.contains(pt)) {
+                return;
+            }
+            out.add(pt);
+            for (String other : payloads) {
+                if (pt.equals(associations.get(other))) {
+                    addWithAssociated(other, associations, out);
+                }
+            }
+        }
+
+        void updateFmtp(String codec, Map<String, String> parameters) {
+            Map<String, String> codecNames = getCodecNames();
+            for (String pt : payloads) {
+                if (!codec.equals(codecNames.get(pt))) {
+                    continue;
+                }
+
+                String prefix = "a=fmtp:" + pt + " ";
+                int fmtpIndex = -1;
+                int rtpmapIndex = -1;
+                for (int i = 0; i < lines.size(); i++) {
+                    String line = lines.get(i);
+                    if (line.startsWith(prefix)) {
+                        fmtpIndex = i;
+                        break;
+                    } else if (line.startsWith("a=rtpmap:" + pt + " ")) {
+                        rtpmapIndex = i;
+                    }
+                }
+
+                Map<String, String> current = fmtpIndex != -1
+                        ? parseFmtpParameters(lines.get(fmtpIndex).substring(prefix.length()))
+                        : new LinkedHashMap<>();
+                for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                    if (entry.getValue() == null) {
+                        current.remove(entry.getKey());
+                    } else {
+                        current.put(entry.getKey(), entry.getValue());
+                    }
+                }
+
+                StringBuilder sb = new StringBuilder(prefix);
+                boolean firstParameter = true;
+                for (Map.Entry<String, String> entry : current.entrySet()) {
+                    if (!firstParameter) {
+                        sb.append(';');
+                    }
+                    sb.append(entry.getKey()).append('=').append(entry.getValue());
+                    firstParameter = false;
+                }
+
+                if (current.isEmpty()) {
+                    if (fmtpIndex != -1) {
+                        lines.remove(fmtpIndex);
+                    }
+                } else if (fmtpIndex != -1) {
+                    lines.set(fmtpIndex, sb.toString());
+                } else {
+                    lines.add(rtpmapIndex + 1, sb.toString());
+                }
+            }
+        }
+
+        void setBandwidth(int kbps) {
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                String line = it.next();
+                if (line.startsWith("b=AS:") || line.startsWith("b=TIAS:")) {
+                    it.remove();
+                }
+            }
+
+            if (kbps <= 0) {
+                return;
+            }
+
+            // Bandwidth lines go after the i= and c= ones.
+            int index = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.startsWith("i=") || line.startsWith("c=")) {
+                    index = i + 1;
+                }
+            }
+            lines.add(index, "b=TIAS:" + (kbps * 1000L));
+            lines.add(index, "b=AS:" + kbps);
+        }
+
+        void removeAttribute(String name) {
+            String exact = "a=" + name;
+            String withValue = exact + ":";
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                String line = it.next();
+                if (line.equals(exact) || line.startsWith(withValue)) {
+                    it.remove();
+                }
+            }
+        }
+
+        WritableMap toWritableMap() {
+            WritableMap result = Arguments.createMap();
+            result.putString("kind", kind);
+            result.putString("port", port);
+            result.putString("protocol", protocol);
+
+            WritableArray payloadsArray = Arguments.createArray();
+            for (String pt : payloads) {
+                payloadsArray.pushString(pt);
+            }
+            result.putArray("payloads", payloadsArray);
+
+            // Codecs, in m= line order.
+            Map<String, WritableMap> codecs = new LinkedHashMap<>();
+            Map<String, WritableArray> feedback = new HashMap<>();
+            for (String pt : payloads) {
+                WritableMap codec = Arguments.createMap();
+                codec.putString("payloadType", pt);
+                codecs.put(pt, codec);
+            }
+
+            WritableArray attributes = Arguments.createArray();
+            WritableMap bandwidth = Arguments.createMap();
+            for (String line : lines) {
+                String value = line.substring(2);
+                switch (line.charAt(0)) {
+                    case 'c':
+                        result.putString("connection", value);
+                        continue;
+                    case 'b':
+                        putBandwidth(bandwidth, value);
+                        continue;
+                    case 'a':
+                        break;
+                    default:
+                        continue;
+                }
+
+                String pt = getPayloadTypeOfLine(line);
+                WritableMap codec = pt != null ? codecs.get(pt) : null;
+                if (codec == null) {
+                    if (line.startsWith("a=mid:")) {
+                        result.putString("mid", line.substring(6));
+                    } else if (line.equals("a=sendrecv") || line.equals("a=sendonly") || line.equals("a=recvonly")
+                            || line.equals("a=inactive")) {
+                        result.putString("direction", value);
+                    }
+                    attributes.pushMap(serializeAttribute(value));
+                    continue;
+                }
+
+                String rest = line.substring(line.indexOf(' ') + 1);
+                if (line.startsWith("a=rtpmap:")) {
+                    String[] parts = rest.split("/");
+                    codec.putString("name", parts[0]);
+                    if (parts.length > 1) {
+                        codec.putString("clockRate", parts[1]);
+                    }
+                    if (parts.length > 2) {
+                        codec.putString("channels", parts[2]);
+                    }
+                } else if (line.startsWith("a=fmtp:")) {
+                    WritableMap parameters = Arguments.createMap();
+                    for (Map.Entry<String, String> entry : parseFmtpParameters(rest).entrySet()) {
+                        parameters.putString(entry.getKey(), entry.getValue());
+                    }
+                    codec.putMap("parameters", parameters);
+                } else {
+                    WritableArray codecFeedback = feedback.get(pt);
+                    if (codecFeedback == null) {
+                        codecFeedback = Arguments.createArray();
+                        feedback.put(pt, codecFeedback);
+                    }
+                    codecFeedback.pushString(rest);
+                }
+            }
+
+            WritableArray codecsArray = Arguments.createArray();
+            for (Map.Entry<String, WritableMap> entry : codecs.entrySet()) {
+                WritableArray codecFeedback = feedback.get(entry.getKey());
+                if (codecFeedback != null) {
+                    entry.getValue().putArray("rtcpFeedback", codecFeedback);
+                }
+                codecsArray.pushMap(entry.getValue());
+            }
+
+            result.putArray("codecs", codecsArray);
+            result.putMap("bandwidth", bandwidth);
+            result.putArray("attributes", attributes);
+            return result;
+        }
+    }
+
+    /**
+     * Returns the payload type an rtpmap, fmtp or rtcp-fb line refers to.
+     */
+    @Nullable
+    private static String getPayloadTypeOfLine(String line) {
+        int start;
+        if (line.startsWith("a=rtpmap:")) {
+            start = 9;
+        } else if (line.startsWith("a=fmtp:")) {
+            start = 7;
+        } else if (line.startsWith("a=rtcp-fb:")) {
+            start = 10;
+        } else {
+            return null;
+        }
+
+        int space = line.indexOf(' ', start);
+        return space != -1 ? line.substring(start, space) : null;
+    }
+
+    private static Map<String, String> parseFmtpParameters(String parameters) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int equals = trimmed.indexOf('=');
+            if (equals == -1) {
+                result.put(trimmed, "");
+            } else {
+                result.put(trimmed.substring(0, equals), trimmed.substring(equals + 1));
+            }
+        }
+        return result;
+    }
+
+    private static WritableMap serializeAttribute(String attribute) {
+        WritableMap result = Arguments.createMap();
+        int colon = attribute.indexOf(':');
+        if (colon == -1) {
+            result.putString("name", attribute);
+        } else {
+            result.putString("name", attribute.substring(0, colon));
+            result.putString("value", attribute.substring(colon + 1));
+        }
+        return result;
+    }
+
+    private static void putBandwidth(WritableMap bandwidth, String value) {
+        int colon = value.indexOf(':');
+        if (colon != -1) {
+            bandwidth.putString(value.substring(0, colon), value.substring(colon + 1));
+        }
+    }
+
+    /**
+     * Rules parsing
+     */
+
+    private static Map<String, List<String>> parseCodecLists(ReadableMap rules, String key) {
+        if (!rules.hasKey(key) || rules.isNull(key)) {
+            return Collections.emptyMap();
+        }
+
+        ReadableMap map = rules.getMap(key);
+        Map<String, List<String>> result = new HashMap<>();
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String kind = it.nextKey();
+            List<String> names = new ArrayList<>();
+            for (String name : parseStrings(map.getArray(kind), key)) {
+                names.add(name.toLowerCase(Locale.ROOT));
+            }
+            result.put(kind, names);
+        }
+        return result;
+    }
+
+    private static List<FmtpRule> parseFmtpRules(ReadableMap rules) {
+        if (!rules.hasKey("fmtp") || rules.isNull("fmtp")) {
+            return Collections.emptyList();
+        }
+
+        ReadableArray array = rules.getArray("fmtp");
+        List<FmtpRule> result = new ArrayList<>();
+        for (int i = 0; i < array.size(); i++) {
+            ReadableMap map = array.getMap(i);
+            if (map == null || !map.hasKey("codec") || !map.hasKey("parameters")) {
+                throw new IllegalArgumentException("fmtp rules need a codec and parameters");
+            }
+
+            FmtpRule rule = new FmtpRule();
+            rule.kind = map.hasKey("kind") ? map.getString("kind") : null;
+            rule.codec = map.getString("codec").toLowerCase(Locale.ROOT);
+            rule.parameters = new LinkedHashMap<>();
+
+            ReadableMap parameters = map.getMap("parameters");
+            ReadableMapKeySetIterator it = parameters.keySetIterator();
+            while (it.hasNextKey()) {
+                String name = it.nextKey();
+                rule.parameters.put(name, stringValue(parameters, name));
+            }
+            result.add(rule);
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> parseBandwidth(ReadableMap rules) {
+        if (!rules.hasKey("bandwidth") || rules.isNull("bandwidth")) {
+            return Collections.emptyMap();
+        }
+
+        ReadableMap map = rules.getMap("bandwidth");
+        Map<String, Integer> result = new HashMap<>();
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String kind = it.nextKey();
+            if (map.getType(kind) != ReadableType.Number) {
+                throw new IllegalArgumentException("bandwidth values must be numbers");
+            }
+            result.put(kind, (int) map.getDouble(kind));
+        }
+        return result;
+    }
+
+    private static List<AttributesRule> parseAttributesRules(ReadableMap rules, String key, boolean adding) {
+        if (!rules.hasKey(key) || rules.isNull(key)) {
+            return Collections.emptyList();
+        }
+
+        ReadableArray array = rules.getArray(key);
+        List<AttributesRule> result = new ArrayList<>();
+        for (int i = 0; i < array.size(); i++) {
+            ReadableMap map = array.getMap(i);
+            if (map == null) {
+                throw new IllegalArgumentException(key + " rules must be objects");
+            }
+
+            AttributesRule rule = new AttributesRule();
+            rule.kind = map.hasKey("kind") ? map.getString("kind") : null;
+            rule.mid = map.hasKey("mid") ? map.getString("mid") : null;
+            if (adding) {
+                if (!map.hasKey("lines")) {
+                    throw new IllegalArgumentException(key + " rules need lines");
+                }
+                rule.lines = parseStrings(map.getArray("lines"), key);
+                for (String line : rule.lines) {
+                    if (!line.startsWith("a=") || line.indexOf('\n') != -1 || line.indexOf('\r') != -1) {
+                        throw new IllegalArgumentException("Invalid attribute line: " + line);
+                    }
+                }
+            } else {
+                if (!map.hasKey("name")) {
+                    throw new IllegalArgumentException(key + " rules need a name");
+                }
+                rule.name = map.getString("name");
+            }
+            result.add(rule);
+        }
+        return result;
+    }
+
+    private static List<String> parseStrings(ReadableArray array, String key) {
+        if (array == null) {
+            throw new IllegalArgumentException(key + " expects arrays of strings");
+        }
+
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < array.size(); i++) {
+            if (array.getType(i) != ReadableType.String) {
+                throw new IllegalArgumentException(key + " expects arrays of strings");
+            }
+            result.add(array.getString(i));
+        }
+        return result;
+    }
+
+    @Nullable
+    private static String stringValue(ReadableMap map, String key) {
+        ReadableType type = map.getType(key);
+        if (type == ReadableType.Null) {
+            return null;
+        } else if (type == ReadableType.Boolean) {
+            return map.getBoolean(key) ? "1" : "0";
+        } else if (type == ReadableType.Number) {
+            double value = map.getDouble(key);
+            return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+        } else if (type == ReadableType.String) {
+            return map.getString(key);
+        }
+        throw new IllegalArgumentException("Unsupported fmtp value for " + key);
+    }
+}
@@ -188,6 +188,52 @@ public class SerializeUtils {
         return result;
     }
 
+    /**
+     * Builds a string which changes whenever the serialized form of the given
+     * parameters does, except for the transaction ID which changes on every
+     * getParameters() call.
+     */
+    public static String fingerprintRtpParameters(RtpParameters params) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(params.getRtcp().getCname()).append('|').append(params.getRtcp().getReducedSize());
+        for (RtpParameters.HeaderExtension extension : params.getHeaderExtensions()) {
+            sb.append("|x")
+                    .append(extension.getId())
+                    .append(',')
+                    .append(extension.getUri())
+                    .append(',')
+                    .append(extension.getEncrypted());
+        }
+        for (RtpParameters.Encoding encoding : params.encodings) {
+            sb.append("|e")
+                    .append(encoding.active)
+                    .append(',')
+                    .append(encoding.rid)
+                    .append(',')
+                    .append(encoding.maxBitrateBps)
+                    .append(',')
+                    .append(encoding.maxFramerate)
+                    .append(',')
+                    .append(encoding.scaleResolutionDownBy);
+        }
+        for (RtpParameters.Codec codec : params.codecs) {
+            sb.append("|c")
+                    .append(codec.payloadType)
+                    .append(',')
+                    .append(codec.name)
+                    .append(',')
+                    .append(codec.clockRate)
+                    .append(',')
+                    .append(codec.numChannels)
+                    .append(',')
+                    .append(serializeSdpParameters(codec.parameters));
+        }
+        sb.append('|').append(params.degradationPreference);
+
+        return sb.toString();
+    }
+
     public static ReadableMap serializeRtpCapabilities(RtpCapabilities capabilities) {
         WritableMap result = Arguments.createMap();
         WritableArray codecs = Arguments.createArray();
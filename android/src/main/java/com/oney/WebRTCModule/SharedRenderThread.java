@@ -0,0 +1,283 @@
+package com.oney.WebRTCModule;
+
+import android.opengl.EGL14;
+import android.opengl.EGLConfig;
+import android.opengl.EGLContext;
+import android.opengl.EGLDisplay;
+import android.opengl.EGLSurface;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Surface;
+
+import org.webrtc.EglBase14;
+import org.webrtc.GlRectDrawer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A render thread with a single EGL context, in the share group of the root
+ * {@link EglUtils} context, which draws the frames of many
+ * {@link SharedVideoRenderer}s into their own window surfaces. Frames are not
+ * drawn as they arrive but once per vsync, only the latest frame of each
+ * renderer being drawn.
+ *
+ * Renderers are spread over a small pool of such threads, created on demand
+ * and stopped once they have no renderers left.
+ */
+class SharedRenderThread implements Choreographer.FrameCallback {
+    private static final String TAG = WebRTCModule.TAG;
+
+    static final int DEFAULT_THREAD_COUNT = 2;
+
+    private static final int[] CONFIG_ATTRIBUTES = {
+        EGL14.EGL_RED_SIZE, 8,
+        EGL14.EGL_GREEN_SIZE, 8,
+        EGL14.EGL_BLUE_SIZE, 8,
+        EGL14.EGL_ALPHA_SIZE, 8,
+        EGL14.EGL_RENDERABLE_TYPE, EGL14.EGL_OPENGL_ES2_BIT,
+        EGL14.EGL_SURFACE_TYPE, EGL14.EGL_WINDOW_BIT | EGL14.EGL_PBUFFER_BIT,
+        EGL14.EGL_NONE
+    };
+
+    /**
+     * The running threads, guarded by the class.
+     */
+    private static final List<SharedRenderThread> threads = new ArrayList<>();
+
+    private static int nextThreadId;
+
+    /**
+     * The number of renderers using this thread, guarded by the class.
+     */
+    private int rendererCount;
+
+    private final HandlerThread thread;
+    private final Handler handler;
+
+    // Render thread only.
+    private EGLDisplay eglDisplay = EGL14.EGL_NO_DISPLAY;
+    private EGLConfig eglConfig;
+    private EGLContext eglContext = EGL14.EGL_NO_CONTEXT;
+    private EGLSurface pbufferSurface = EGL14.EGL_NO_SURFACE;
+    private GlRectDrawer drawer;
+    private final Set<SharedVideoRenderer> dirtyRenderers = new LinkedHashSet<>();
+    private boolean frameCallbackPosted;
+    private final int[] surfaceSize = new int[1];
+
+    private SharedRenderThread(EglBase14.Context sharedContext, int threadId) {
+        thread = new HandlerThread("SharedRenderThread-" + threadId);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(() -> initEgl(sharedContext));
+    }
+
+    /**
+     * Returns the thread a new renderer is to use, the least used one unless
+     * another thread can be started.
+     */
+    static synchronized SharedRenderThread obtain(EglBase14.Context sharedContext) {
+        int maxThreads = WebRTCModuleOptions.getInstance().sharedRenderThreads;
+        if (maxThreads <= 0) {
+            maxThreads = DEFAULT_THREAD_COUNT;
+        }
+
+        SharedRenderThread renderThread = null;
+        for (SharedRenderThread t : threads) {
+            if (renderThread == null || t.rendererCount < renderThread.rendererCount) {
+                renderThread = t;
+            }
+        }
+        if (renderThread == null || (renderThread.rendererCount > 0 && threads.size() < maxThreads)) {
+            renderThread = new SharedRenderThread(sharedContext, nextThreadId++);
+            threads.add(renderThread);
+        }
+
+        renderThread.rendererCount++;
+        return renderThread;
+    }
+
+    /**
+     * Gives back a thread returned by {@link #obtain}, stopping it if it has
+     * no renderers left. Tasks posted before are still run.
+     */
+    static synchronized void recycle(SharedRenderThread renderThread) {
+        if (--renderThread.rendererCount > 0) {
+            return;
+        }
+
+        threads.remove(renderThread);
+        renderThread.handler.post(renderThread::releaseEgl);
+        renderThread.thread.quitSafely();
+    }
+
+    void post(Runnable runnable) {
+        handler.post(runnable);
+    }
+
+    /**
+     * Runs the given task on the render thread and waits for it, e.g. so a
+     * window surface is destroyed before its {@link Surface} goes away.
+     */
+    void invoke(Runnable runnable) {
+        org.webrtc.ThreadUtils.invokeAtFrontUninterruptibly(handler, runnable);
+    }
+
+    /**
+     * Schedules the drawing of the latest frame of the given renderer on the
+     * next vsync.
+     */
+    void scheduleRender(SharedVideoRenderer renderer) {
+        handler.post(() -> {
+            dirtyRenderers.add(renderer);
+            if (!frameCallbackPosted) {
+                frameCallbackPosted = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        });
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+
+        List<SharedVideoRenderer> renderers = new ArrayList<>(dirtyRenderers);
+        dirtyRenderers.clear();
+        for (SharedVideoRenderer renderer : renderers) {
+            renderer.render(this);
+        }
+    }
+
+    GlRectDrawer getDrawer() {
+        return drawer;
+    }
+
+    boolean isReady() {
+        return eglContext != EGL14.EGL_NO_CONTEXT;
+    }
+
+    EGLSurface createWindowSurface(Surface surface) {
+        if (!isReady()) {
+            return EGL14.EGL_NO_SURFACE;
+        }
+
+        EGLSurface eglSurface = EGL14.eglCreateWindowSurface(
+                eglDisplay, eglConfig, surface, new int[] { EGL14.EGL_NONE }, 0);
+        if (eglSurface == EGL14.EGL_NO_SURFACE) {
+            Log.e(TAG, "SharedRenderThread: failed to create a window surface: 0x"
+                    + Integer.toHexString(EGL14.eglGetError()));
+            return eglSurface;
+        }
+
+        // Frames are paced by the Choreographer, swapping must not block on
+        // the vsync of every surface in turn.
+        if (makeCurrent(eglSurface)) {
+            EGL14.eglSwapInterval(eglDisplay, 0);
+        }
+        return eglSurface;
+    }
+
+    void destroySurface(EGLSurface eglSurface) {
+        if (eglSurface == EGL14.EGL_NO_SURFACE) {
+            return;
+        }
+
+        makeCurrent(pbufferSurface);
+        EGL14.eglDestroySurface(eglDisplay, eglSurface);
+    }
+
+    /**
+     * Makes the context current on the given surface, or on a surface of its
+     * own if none is given, e.g. to release GL resources.
+     */
+    boolean makeCurrent(EGLSurface eglSurface) {
+        if (!isReady()) {
+            return false;
+        }
+
+        if (eglSurface == EGL14.EGL_NO_SURFACE) {
+            eglSurface = pbufferSurface;
+        }
+        if (!EGL14.eglMakeCurrent(eglDisplay, eglSurface, eglSurface, eglContext)) {
+            Log.w(TAG, "SharedRenderThread: eglMakeCurrent failed: 0x" + Integer.toHexString(EGL14.eglGetError()));
+            return false;
+        }
+        return true;
+    }
+
+    int getSurfaceWidth(EGLSurface eglSurface) {
+        EGL14.eglQuerySurface(eglDisplay, eglSurface, EGL14.EGL_WIDTH, surfaceSize, 0);
+        return surfaceSize[0];
+    }
+
+    int getSurfaceHeight(EGLSurface eglSurface) {
+        EGL14.eglQuerySurface(eglDisplay, eglSurface, EGL14.EGL_HEIGHT, surfaceSize, 0);
+        return surfaceSize[0];
+    }
+
+    void swapBuffers(EGLSurface eglSurface) {
+        EGL14.eglSwapBuffers(eglDisplay, eglSurface);
+    }
+
+    private void initEgl(EglBase14.Context sharedContext) {
+        eglDisplay = EGL14.eglGetDisplay(EGL14.EGL_DEFAULT_DISPLAY);
+        int[] version = new int[2];
+        if (eglDisplay == EGL14.EGL_NO_DISPLAY || !EGL14.eglInitialize(eglDisplay, version, 0, version, 1)) {
+            Log.e(TAG, "SharedRenderThread: failed to initialize EGL");
+            return;
+        }
+
+        EGLConfig[] configs = new EGLConfig[1];
+        int[] numConfigs = new int[1];
+        if (!EGL14.eglChooseConfig(eglDisplay, CONFIG_ATTRIBUTES, 0, configs, 0, 1, numConfigs, 0)
+                || numConfigs[0] == 0) {
+            Log.e(TAG, "SharedRenderThread: no matching EGL config");
+            return;
+        }
+        eglConfig = configs[0];
+
+        int[] contextAttributes = { EGL14.EGL_CONTEXT_CLIENT_VERSION, 2, EGL14.EGL_NONE };
+        EGLContext context =
+                EGL14.eglCreateContext(eglDisplay, eglConfig, sharedContext.getRawContext(), contextAttributes, 0);
+        if (context == EGL14.EGL_NO_CONTEXT) {
+            Log.e(TAG, "SharedRenderThread: failed to create an EGL context: 0x"
+                    + Integer.toHexString(EGL14.eglGetError()));
+            return;
+        }
+
+        int[] pbufferAttributes = { EGL14.EGL_WIDTH, 1, EGL14.EGL_HEIGHT, 1, EGL14.EGL_NONE };
+        pbufferSurface = EGL14.eglCreatePbufferSurface(eglDisplay, eglConfig, pbufferAttributes, 0);
+        eglContext = context;
+        makeCurrent(pbufferSurface);
+        drawer = new GlRectDrawer();
+
+        Log.d(TAG, "SharedRenderThread: " + thread.getName() + " started");
+    }
+
+    private void releaseEgl() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        dirtyRenderers.clear();
+
+        if (isReady()) {
+            makeCurrent(pbufferSurface);
+            drawer.release();
+            drawer = null;
+            EGL14.eglMakeCurrent(
+                    eglDisplay, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_CONTEXT);
+            EGL14.eglDestroySurface(eglDisplay, pbufferSurface);
+            EGL14.eglDestroyContext(eglDisplay, eglContext);
+            pbufferSurface = EGL14.EGL_NO_SURFACE;
+            eglContext = EGL14.EGL_NO_CONTEXT;
+        }
+
+        // The display is shared with the rest of the process, it is not
+        // terminated.
+        eglDisplay = EGL14.EGL_NO_DISPLAY;
+
+        Log.d(TAG, "SharedRenderThread: " + thread.getName() + " stopped");
+    }
+}
@@ -0,0 +1,350 @@
+package com.oney.WebRTCModule;
+
+import android.content.Context;
+import android.graphics.Matrix;
+import android.opengl.EGL14;
+import android.opengl.EGLSurface;
+import android.opengl.GLES20;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import org.webrtc.EglBase;
+import org.webrtc.EglBase14;
+import org.webrtc.RendererCommon.RendererEvents;
+import org.webrtc.RendererCommon.ScalingType;
+import org.webrtc.VideoFrame;
+import org.webrtc.VideoFrameDrawer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ViewRenderer} which doesn't have an EGL context and a render
+ * thread of its own but draws through a {@link SharedRenderThread}, so many
+ * of them (e.g. a gallery of participants) don't exhaust the EGL contexts
+ * and memory available.
+ *
+ * Frames which arrive while the previous one has not been drawn yet replace
+ * it, so at most one frame per vsync is uploaded and drawn.
+ */
+class SharedVideoRenderer extends SurfaceView implements ViewRenderer, SurfaceHolder.Callback {
+    /**
+     * Whether the shared rendering can be used, it requires the root EGL
+     * context to be an EGL14 one.
+     */
+    static boolean isSupported() {
+        return EglUtils.getRootEglBaseContext() instanceof EglBase14.Context;
+    }
+
+    private final Object frameLock = new Object();
+
+    /**
+     * The latest frame not drawn yet, guarded by {@link #frameLock}.
+     */
+    private VideoFrame pendingFrame;
+
+    private volatile SharedRenderThread renderThread;
+    private volatile RendererEvents rendererEvents;
+    private volatile boolean mirror;
+
+    /**
+     * The size and rotation of the last frame, guarded by
+     * {@link #frameLock}.
+     */
+    private int rotatedFrameWidth;
+    private int rotatedFrameHeight;
+    private int frameRotation;
+
+    /**
+     * The minimum time between two rendered frames, or -1 to render none,
+     * and when the next frame may be rendered, guarded by
+     * {@link #frameLock}.
+     */
+    private long minRenderPeriodNs;
+    private long nextRenderTimeNs;
+
+    // Render thread only.
+    private EGLSurface eglSurface = EGL14.EGL_NO_SURFACE;
+    private final VideoFrameDrawer frameDrawer = new VideoFrameDrawer();
+    private final Matrix drawMatrix = new Matrix();
+    private boolean firstFrameRendered;
+
+    SharedVideoRenderer(Context context) {
+        super(context);
+
+        getHolder().addCallback(this);
+    }
+
+    @Override
+    public View getView() {
+        return this;
+    }
+
+    @Override
+    public void init(EglBase.Context sharedContext, RendererEvents rendererEvents) {
+        if (renderThread != null) {
+            return;
+        }
+
+        this.rendererEvents = rendererEvents;
+        synchronized (frameLock) {
+            rotatedFrameWidth = 0;
+            rotatedFrameHeight = 0;
+            frameRotation = 0;
+        }
+
+        SharedRenderThread thread = SharedRenderThread.obtain((EglBase14.Context) sharedContext);
+        thread.post(() -> firstFrameRendered = false);
+        renderThread = thread;
+
+        // The surface may be there already, otherwise surfaceCreated() will
+        // take care of it.
+        Surface surface = getHolder().getSurface();
+        if (surface != null && surface.isValid()) {
+            thread.post(() -> createEglSurface(thread, surface));
+        }
+    }
+
+    @Override
+    public void release() {
+        SharedRenderThread thread = renderThread;
+        if (thread == null) {
+            return;
+        }
+
+        renderThread = null;
+        rendererEvents = null;
+        synchronized (frameLock) {
+            if (pendingFrame != null) {
+                pendingFrame.release();
+                pendingFrame = null;
+            }
+        }
+
+        // Like SurfaceViewRenderer, wait for the window surface to be gone so
+        // the view can be reused right away.
+        thread.invoke(() -> {
+            destroyEglSurface(thread);
+            thread.makeCurrent(EGL14.EGL_NO_SURFACE);
+            frameDrawer.release();
+        });
+        SharedRenderThread.recycle(thread);
+    }
+
+    @Override
+    public void setRendererEvents(@Nullable RendererEvents rendererEvents) {
+        // The resolution is reported again along with the next frame.
+        synchronized (frameLock) {
+            this.rendererEvents = rendererEvents;
+            rotatedFrameWidth = 0;
+            rotatedFrameHeight = 0;
+            frameRotation = 0;
+        }
+    }
+
+    @Override
+    public void clearImage() {
+        SharedRenderThread thread = renderThread;
+        if (thread == null) {
+            return;
+        }
+
+        synchronized (frameLock) {
+            if (pendingFrame != null) {
+                pendingFrame.release();
+                pendingFrame = null;
+            }
+        }
+
+        thread.post(() -> {
+            if (eglSurface != EGL14.EGL_NO_SURFACE && thread.makeCurrent(eglSurface)) {
+                GLES20.glClearColor(0, 0, 0, 0);
+                GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+                thread.swapBuffers(eglSurface);
+            }
+        });
+    }
+
+    @Override
+    public void setMirror(boolean mirror) {
+        this.mirror = mirror;
+    }
+
+    /**
+     * Frames are always scaled to fill the surface, see
+     * {@link ViewRenderer#setScalingType}.
+     */
+    @Override
+    public void setScalingType(ScalingType scalingType) {
+    }
+
+    @Override
+    public void setFpsReduction(float fps) {
+        synchronized (frameLock) {
+            if (fps <= 0) {
+                minRenderPeriodNs = -1;
+            } else if (fps == Float.POSITIVE_INFINITY) {
+                minRenderPeriodNs = 0;
+            } else {
+                minRenderPeriodNs = (long) (TimeUnit.SECONDS.toNanos(1) / fps);
+            }
+            nextRenderTimeNs = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void setZOrder(int zOrder) {
+        ViewRenderer.applyZOrder(this, zOrder);
+    }
+
+    @Override
+    public void onFrame(VideoFrame frame) {
+        SharedRenderThread thread = renderThread;
+        RendererEvents events = rendererEvents;
+        if (thread == null) {
+            return;
+        }
+
+        boolean resolutionChanged = false;
+        boolean drop = false;
+        synchronized (frameLock) {
+            if (rotatedFrameWidth != frame.getRotatedWidth() || rotatedFrameHeight != frame.getRotatedHeight()
+                    || frameRotation != frame.getRotation()) {
+                rotatedFrameWidth = frame.getRotatedWidth();
+                rotatedFrameHeight = frame.getRotatedHeight();
+                frameRotation = frame.getRotation();
+                resolutionChanged = true;
+            }
+
+            // Frames over the frame rate limit are dropped right away, they
+            // are never uploaded.
+            if (minRenderPeriodNs < 0) {
+                drop = true;
+            } else if (minRenderPeriodNs > 0) {
+                long now = System.nanoTime();
+                if (now < nextRenderTimeNs) {
+                    drop = true;
+                } else {
+                    // Keep the pace even if frames don't arrive on time.
+                    nextRenderTimeNs = Math.max(nextRenderTimeNs + minRenderPeriodNs, now);
+                }
+            }
+            if (!drop) {
+                // The previous frame was not drawn in time, drop it before its
+                // textures get uploaded.
+                if (pendingFrame != null) {
+                    pendingFrame.release();
+                }
+                frame.retain();
+                pendingFrame = frame;
+            }
+        }
+
+        if (resolutionChanged && events != null) {
+            events.onFrameResolutionChanged(
+                    frame.getBuffer().getWidth(), frame.getBuffer().getHeight(), frame.getRotation());
+        }
+
+        if (!drop) {
+            thread.scheduleRender(this);
+        }
+    }
+
+    /**
+     * Draws the pending frame, if any, called by the render thread on vsync.
+     */
+    void render(SharedRenderThread thread) {
+        // Released, or moved to another thread, since it was scheduled.
+        if (thread != renderThread) {
+            return;
+        }
+
+        VideoFrame frame;
+        synchronized (frameLock) {
+            frame = pendingFrame;
+            pendingFrame = null;
+        }
+        if (frame == null) {
+            return;
+        }
+
+        try {
+            if (eglSurface == EGL14.EGL_NO_SURFACE || !thread.makeCurrent(eglSurface)) {
+                return;
+            }
+
+            int width = thread.getSurfaceWidth(eglSurface);
+            int height = thread.getSurfaceHeight(eglSurface);
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+
+            // Crop the frame to the aspect ratio of the surface, like EglRenderer.
+            float frameAspectRatio = frame.getRotatedWidth() / (float) frame.getRotatedHeight();
+            float surfaceAspectRatio = width / (float) height;
+            float scaleX = 1f;
+            float scaleY = 1f;
+            if (frameAspectRatio > surfaceAspectRatio) {
+                scaleX = surfaceAspectRatio / frameAspectRatio;
+            } else {
+                scaleY = frameAspectRatio / surfaceAspectRatio;
+            }
+            drawMatrix.reset();
+            drawMatrix.preTranslate(0.5f, 0.5f);
+            drawMatrix.preScale(mirror ? -1f : 1f, 1f);
+            drawMatrix.preScale(scaleX, scaleY);
+            drawMatrix.preTranslate(-0.5f, -0.5f);
+
+            GLES20.glClearColor(0, 0, 0, 0);
+            GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+            frameDrawer.drawFrame(frame, thread.getDrawer(), drawMatrix, 0, 0, width, height);
+            thread.swapBuffers(eglSurface);
+
+            if (!firstFrameRendered) {
+                firstFrameRendered = true;
+                RendererEvents events = rendererEvents;
+                if (events != null) {
+                    events.onFirstFrameRendered();
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        SharedRenderThread thread = renderThread;
+        if (thread != null) {
+            Surface surface = holder.getSurface();
+            thread.post(() -> createEglSurface(thread, surface));
+        }
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // The window surface must be gone before the Surface is.
+        SharedRenderThread thread = renderThread;
+        if (thread != null) {
+            thread.invoke(() -> destroyEglSurface(thread));
+        }
+    }
+
+    private void createEglSurface(SharedRenderThread thread, Surface surface) {
+        if (eglSurface == EGL14.EGL_NO_SURFACE && surface.isValid()) {
+            eglSurface = thread.createWindowSurface(surface);
+        }
+    }
+
+    private void destroyEglSurface(SharedRenderThread thread) {
+        thread.destroySurface(eglSurface);
+        eglSurface = EGL14.EGL_NO_SURFACE;
+    }
+}
@@ -0,0 +1,108 @@
+package com.oney.WebRTCModule;
+
+import org.webrtc.PeerConnection;
+import org.webrtc.RTCStatsReport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Periodically collects the stats of a PeerConnection, with a single
+ * getStats() call per interval shared by all the interested parties, on the
+ * module's shared scheduler. Polling only happens while there are listeners,
+ * at the shortest interval any of them asked for.
+ *
+ * Accessed on the executor only, listeners are called there too.
+ */
+class StatsPoller {
+    static final long DEFAULT_INTERVAL_MS = 1000;
+
+    interface Listener {
+        void onStats(RTCStatsReport report);
+    }
+
+    private final PeerConnectionObserver pco;
+    private final Map<Listener, Long> listeners = new LinkedHashMap<>();
+    private ScheduledFuture<?> pollTask;
+    private boolean polling;
+    private boolean disposed;
+
+    StatsPoller(PeerConnectionObserver pco) {
+        this.pco = pco;
+    }
+
+    void addListener(Listener listener) {
+        addListener(listener, DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * Adds a listener, or updates the interval it asked for if it was added
+     * already.
+     */
+    void addListener(Listener listener, long intervalMs) {
+        if (disposed) {
+            return;
+        }
+
+        listeners.put(listener, intervalMs);
+        schedulePoll();
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+
+        if (listeners.isEmpty() && pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+    }
+
+    void dispose() {
+        disposed = true;
+        listeners.clear();
+
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+    }
+
+    private void schedulePoll() {
+        if (pollTask == null && !polling && !disposed && !listeners.isEmpty()) {
+            pollTask = ThreadUtils.scheduleOnExecutor(this::poll, getIntervalMs());
+        }
+    }
+
+    private long getIntervalMs() {
+        long intervalMs = Long.MAX_VALUE;
+        for (long listenerIntervalMs : listeners.values()) {
+            intervalMs = Math.min(intervalMs, listenerIntervalMs);
+        }
+        return intervalMs;
+    }
+
+    private void poll() {
+        pollTask = null;
+
+        PeerConnection peerConnection = pco.getPeerConnection();
+        if (disposed || listeners.isEmpty() || peerConnection == null) {
+            return;
+        }
+
+        polling = true;
+        peerConnection.getStats(report -> ThreadUtils.runOnExecutor(() -> {
+            polling = false;
+            if (disposed) {
+                return;
+            }
+
+            for (Listener listener : new ArrayList<>(listeners.keySet())) {
+                listener.onStats(report);
+            }
+
+            schedulePoll();
+        }));
+    }
+}
@@ -0,0 +1,102 @@
+package com.oney.WebRTCModule;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import org.webrtc.EglBase;
+import org.webrtc.RendererCommon.RendererEvents;
+import org.webrtc.SurfaceViewRenderer;
+
+/**
+ * The default {@link ViewRenderer}, a {@link SurfaceViewRenderer} which
+ * creates its own EGL context and render thread when initialized.
+ */
+class SurfaceViewVideoRenderer extends SurfaceViewRenderer implements ViewRenderer {
+    private final Object eventsLock = new Object();
+
+    /**
+     * The listener events are forwarded to, and the last resolution reported
+     * to it, guarded by {@link #eventsLock}.
+     */
+    private RendererEvents rendererEvents;
+    private int frameWidth;
+    private int frameHeight;
+    private int frameRotation;
+
+    /**
+     * Given to {@link SurfaceViewRenderer#init}, which doesn't allow the
+     * listener to be replaced.
+     */
+    private final RendererEvents forwardingEvents = new RendererEvents() {
+        @Override
+        public void onFirstFrameRendered() {
+            RendererEvents events;
+            synchronized (eventsLock) {
+                events = rendererEvents;
+            }
+            if (events != null) {
+                events.onFirstFrameRendered();
+            }
+        }
+
+        @Override
+        public void onFrameResolutionChanged(int videoWidth, int videoHeight, int rotation) {
+            RendererEvents events;
+            synchronized (eventsLock) {
+                frameWidth = videoWidth;
+                frameHeight = videoHeight;
+                frameRotation = rotation;
+                events = rendererEvents;
+            }
+            if (events != null) {
+                events.onFrameResolutionChanged(videoWidth, videoHeight, rotation);
+            }
+        }
+    };
+
+    SurfaceViewVideoRenderer(Context context) {
+        super(context);
+    }
+
+    @Override
+    public View getView() {
+        return this;
+    }
+
+    @Override
+    public void init(EglBase.Context sharedContext, RendererEvents rendererEvents) {
+        synchronized (eventsLock) {
+            this.rendererEvents = rendererEvents;
+            frameWidth = 0;
+            frameHeight = 0;
+            frameRotation = 0;
+        }
+        super.init(sharedContext, forwardingEvents);
+    }
+
+    @Override
+    public void setRendererEvents(@Nullable RendererEvents rendererEvents) {
+        int width;
+        int height;
+        int rotation;
+        synchronized (eventsLock) {
+            this.rendererEvents = rendererEvents;
+            width = frameWidth;
+            height = frameHeight;
+            rotation = frameRotation;
+        }
+
+        // SurfaceViewRenderer only reports changes, so if the next frame has
+        // the same resolution nothing would be reported.
+        if (rendererEvents != null && width != 0 && height != 0) {
+            rendererEvents.onFrameResolutionChanged(width, height, rotation);
+        }
+    }
+
+    @Override
+    public void setZOrder(int zOrder) {
+        ViewRenderer.applyZOrder(this, zOrder);
+    }
+}
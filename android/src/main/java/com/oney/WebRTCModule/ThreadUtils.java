@@ -4,6 +4,9 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 final class ThreadUtils {
     /**
@@ -13,6 +16,25 @@ final class ThreadUtils {
      */
     private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
+    /**
+     * Thread which will be used for blocking file I/O, so that slow storage
+     * never stalls the WebRTC executor nor the WebRTC network thread.
+     */
+    private static final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Thread which will be used to decompress DataChannel messages, separate
+     * from the I/O one so that large messages and slow storage don't hold up
+     * each other.
+     */
+    private static final ExecutorService decompressionExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Thread which only keeps time for delayed tasks, they are handed over to
+     * the executor once due.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
     /**
      * Runs the given {@link Runnable} on the executor.
      * @param runnable
@@ -38,4 +60,31 @@ final class ThreadUtils {
     public static Future<?> submitToExecutor(Runnable runnable) {
         return executor.submit(runnable);
     }
+
+    /**
+     * Runs the given {@link Runnable} on the executor after the given delay.
+     * @param runnable
+     * @param delayMs
+     * @return ScheduledFuture which can be used to cancel the task before it's
+     * handed over to the executor.
+     */
+    public static ScheduledFuture<?> scheduleOnExecutor(Runnable runnable, long delayMs) {
+        return scheduler.schedule(() -> executor.execute(runnable), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the given {@link Runnable} on the I/O executor.
+     * @param runnable
+     */
+    public static void runOnIoExecutor(Runnable runnable) {
+        ioExecutor.execute(runnable);
+    }
+
+    /**
+     * Runs the given {@link Runnable} on the decompression executor.
+     * @param runnable
+     */
+    public static void runOnDecompressionExecutor(Runnable runnable) {
+        decompressionExecutor.execute(runnable);
+    }
 }
@@ -1,137 +1,148 @@
 package com.oney.WebRTCModule;
 
+import android.os.SystemClock;
 import android.util.*;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableMap;
 
-import org.webrtc.VideoFrame;
-import org.webrtc.VideoSink;
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
 import org.webrtc.VideoTrack;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implements mute/unmute events for remote video tracks.
- * Mute event is fired when there are no frames to be render for 1500ms
- * initially and 500ms after the first frame was received.
+ * A track is considered muted when no frames were decoded for 1500ms,
+ * which is first checked 3000ms after the track was added. Frames are
+ * counted through the framesDecoded stats of the inbound RTP streams, which
+ * are polled for all the tracks of the PeerConnection at once.
+ *
+ * Accessed on the executor only.
  */
-public class VideoTrackAdapter {
+public class VideoTrackAdapter implements StatsPoller.Listener {
     static final String TAG = VideoTrackAdapter.class.getCanonicalName();
     static final long INITIAL_MUTE_DELAY = 3000;
     static final long MUTE_DELAY = 1500;
 
-    private Map<String, TrackMuteUnmuteImpl> muteImplMap = new HashMap<>();
+    private static class TrackState {
+        final long addedTime = SystemClock.elapsedRealtime();
+        long framesDecoded = -1;
+        long lastProgressTime = addedTime;
+        boolean mutedState;
+    }
 
-    private Timer timer = new Timer("VideoTrackMutedTimer");
+    private final Map<String, TrackState> trackStates = new HashMap<>();
 
-    private final int peerConnectionId;
+    private volatile int peerConnectionId;
 
     private final WebRTCModule webRTCModule;
 
-    public VideoTrackAdapter(WebRTCModule webRTCModule, int peerConnectionId) {
+    private final ConnectionTimeline timeline;
+
+    private final StatsPoller statsPoller;
+
+    public VideoTrackAdapter(
+            WebRTCModule webRTCModule, int peerConnectionId, ConnectionTimeline timeline, StatsPoller statsPoller) {
         this.peerConnectionId = peerConnectionId;
         this.webRTCModule = webRTCModule;
+        this.timeline = timeline;
+        this.statsPoller = statsPoller;
+    }
+
+    void setPeerConnectionId(int peerConnectionId) {
+        this.peerConnectionId = peerConnectionId;
     }
 
     public void addAdapter(VideoTrack videoTrack) {
         String trackId = videoTrack.id();
-        if (muteImplMap.containsKey(trackId)) {
+        if (trackStates.containsKey(trackId)) {
             Log.w(TAG, "Attempted to add adapter twice for track ID: " + trackId);
             return;
         }
 
-        TrackMuteUnmuteImpl onMuteImpl = new TrackMuteUnmuteImpl(trackId);
+        trackStates.put(trackId, new TrackState());
         Log.d(TAG, "Created adapter for " + trackId);
-        muteImplMap.put(trackId, onMuteImpl);
-        videoTrack.addSink(onMuteImpl);
-        onMuteImpl.start();
+        statsPoller.addListener(this);
     }
 
     public void removeAdapter(VideoTrack videoTrack) {
         String trackId = videoTrack.id();
-        TrackMuteUnmuteImpl onMuteImpl = muteImplMap.remove(trackId);
-        if (onMuteImpl == null) {
+        if (trackStates.remove(trackId) == null) {
             Log.w(TAG, "removeAdapter - no adapter for " + trackId);
             return;
         }
 
-        videoTrack.removeSink(onMuteImpl);
-        onMuteImpl.dispose();
         Log.d(TAG, "Deleted adapter for " + trackId);
-    }
-
-    /**
-     * Implements 'mute'/'unmute' events for remote video tracks through
-     * the {@link VideoSink} interface.
-     */
-    private class TrackMuteUnmuteImpl implements VideoSink {
-        private TimerTask emitMuteTask;
-        private volatile boolean disposed;
-        private AtomicInteger frameCounter;
-        private boolean mutedState;
-        private final String trackId;
-
-        TrackMuteUnmuteImpl(String trackId) {
-            this.trackId = trackId;
-            this.frameCounter = new AtomicInteger();
+        if (trackStates.isEmpty()) {
+            statsPoller.removeListener(this);
         }
+    }
 
-        @Override
-        public void onFrame(VideoFrame frame) {
-            frameCounter.addAndGet(1);
-        }
+    @Override
+    public void onStats(RTCStatsReport report) {
+        long now = SystemClock.elapsedRealtime();
 
-        private void start() {
-            if (disposed) {
-                return;
+        for (RTCStats stats : report.getStatsMap().values()) {
+            if (!"inbound-rtp".equals(stats.getType())) {
+                continue;
             }
 
-            synchronized (this) {
-                if (emitMuteTask != null) {
-                    emitMuteTask.cancel();
-                }
-                emitMuteTask = new TimerTask() {
-                    private int lastFrameNumber = frameCounter.get();
-
-                    @Override
-                    public void run() {
-                        if (disposed) {
-                            return;
-                        }
-                        boolean isMuted = lastFrameNumber == frameCounter.get();
-                        if (isMuted != mutedState) {
-                            mutedState = isMuted;
-                            emitMuteEvent(isMuted);
-                        }
-
-                        lastFrameNumber = frameCounter.get();
-                    }
-                };
-                timer.schedule(emitMuteTask, INITIAL_MUTE_DELAY, MUTE_DELAY);
+            Map<String, Object> members = stats.getMembers();
+            if (!"video".equals(members.get("kind"))) {
+                continue;
             }
-        }
 
-        private void emitMuteEvent(boolean muted) {
-            WritableMap params = Arguments.createMap();
-            params.putInt("pcId", peerConnectionId);
-            params.putString("trackId", trackId);
-            params.putBoolean("muted", muted);
+            TrackState state = trackStates.get((String) members.get("trackIdentifier"));
+            if (state == null) {
+                continue;
+            }
 
-            Log.d(TAG, (muted ? "Mute" : "Unmute") + " event pcId: " + peerConnectionId + " trackId: " + trackId);
+            Object frames = members.get("framesDecoded");
+            if (!(frames instanceof Number)) {
+                frames = members.get("framesReceived");
+            }
+            long framesDecoded = frames instanceof Number ? ((Number) frames).longValue() : 0;
 
-            VideoTrackAdapter.this.webRTCModule.sendEvent("mediaStreamTrackMuteChanged", params);
+            if (framesDecoded > state.framesDecoded) {
+                if (framesDecoded > 0) {
+                    if (state.framesDecoded <= 0) {
+                        timeline.markFirstVideoFrame((String) members.get("trackIdentifier"));
+                    }
+                    state.lastProgressTime = now;
+                }
+                state.framesDecoded = framesDecoded;
+            }
         }
 
-        void dispose() {
-            disposed = true;
-            synchronized (this) {
-                if (emitMuteTask != null) {
-                    emitMuteTask.cancel();
-                    emitMuteTask = null;
-                }
+        for (Map.Entry<String, TrackState> entry : trackStates.entrySet()) {
+            TrackState state = entry.getValue();
+            if (now - state.addedTime < INITIAL_MUTE_DELAY) {
+                continue;
+            }
+
+            boolean isMuted = now - state.lastProgressTime >= MUTE_DELAY;
+            if (isMuted != state.mutedState) {
+                state.mutedState = isMuted;
+                emitMuteEvent(entry.getKey(), isMuted);
             }
         }
     }
+
+    private void emitMuteEvent(String trackId, boolean muted) {
+        WritableMap params = Arguments.createMap();
+        params.putInt("pcId", peerConnectionId);
+        params.putString("trackId", trackId);
+        params.putBoolean("muted", muted);
+
+        Log.d(TAG, (muted ? "Mute" : "Unmute") + " event pcId: " + peerConnectionId + " trackId: " + trackId);
+
+        webRTCModule.sendEvent("mediaStreamTrackMuteChanged", params);
+    }
+
+    void dispose() {
+        trackStates.clear();
+        statsPoller.removeListener(this);
+    }
 }
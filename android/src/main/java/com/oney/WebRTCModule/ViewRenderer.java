@@ -0,0 +1,88 @@
+package com.oney.WebRTCModule;
+
+import android.view.SurfaceView;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import org.webrtc.EglBase;
+import org.webrtc.RendererCommon.RendererEvents;
+import org.webrtc.RendererCommon.ScalingType;
+import org.webrtc.VideoSink;
+
+/**
+ * The {@link View} which actually renders the video of a {@link WebRTCView}.
+ * Implemented by {@link SurfaceViewVideoRenderer}, which has its own EGL
+ * context and render thread, and by {@link SharedVideoRenderer}, which draws
+ * through a {@link SharedRenderThread}.
+ *
+ * All the methods but {@link #onFrame} are called on the UI thread.
+ */
+interface ViewRenderer extends VideoSink {
+    View getView();
+
+    /**
+     * Prepares the rendering, must be called before frames are delivered.
+     */
+    void init(EglBase.Context sharedContext, RendererEvents rendererEvents);
+
+    /**
+     * Releases the rendering resources, {@link #init} can be called again
+     * afterwards.
+     */
+    void release();
+
+    /**
+     * Replaces the listener given to {@link #init}, e.g. when a pooled
+     * renderer is handed over to another view. The new listener is told the
+     * frame resolution again.
+     */
+    void setRendererEvents(@Nullable RendererEvents rendererEvents);
+
+    /**
+     * Clears the surface, so nothing is displayed until the next frame.
+     */
+    void clearImage();
+
+    void setMirror(boolean mirror);
+
+    /**
+     * May be a no-op. For {@code SCALE_ASPECT_FIT} {@link WebRTCView} lays the
+     * renderer out with the aspect ratio of the video, for
+     * {@code SCALE_ASPECT_FILL} over its whole area, so a renderer which
+     * always crops the frames to the aspect ratio of its surface displays
+     * them as expected either way.
+     */
+    void setScalingType(ScalingType scalingType);
+
+    /**
+     * Limits the rendering to the given frame rate, frames coming in faster
+     * are dropped before being drawn. {@code Float.POSITIVE_INFINITY} means
+     * no limit.
+     */
+    void setFpsReduction(float fps);
+
+    /**
+     * @param zOrder see {@link WebRTCView#setZOrder(int)}.
+     */
+    void setZOrder(int zOrder);
+
+    /**
+     * Applies a z-order, as given to {@link #setZOrder}, to the
+     * {@link SurfaceView} of a renderer. Must be called before the view is
+     * attached to a window.
+     */
+    static void applyZOrder(SurfaceView view, int zOrder) {
+        switch (zOrder) {
+            case 0:
+                view.setZOrderMediaOverlay(false);
+                break;
+            case 1:
+                view.setZOrderMediaOverlay(true);
+                break;
+            case 2:
+                view.setZOrderOnTop(true);
+                break;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.oney.WebRTCModule;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Initialized {@link ViewRenderer}s given back by {@link WebRTCView}s
+ * detached from the window, e.g. tiles scrolled out of a list, so the views
+ * attached next can reuse them instead of setting up an EGL context and a
+ * render thread again. Renderers which stay in the pool for too long are
+ * released.
+ *
+ * The pool is disabled unless {@link WebRTCModuleOptions#rendererPoolSize}
+ * is set. Accessed on the UI thread only.
+ */
+class ViewRendererPool {
+    private static final String TAG = WebRTCModule.TAG;
+
+    static final long DEFAULT_IDLE_TIMEOUT_MS = 10000;
+
+    private static class Entry implements Runnable {
+        final ViewRenderer renderer;
+
+        Entry(ViewRenderer renderer) {
+            this.renderer = renderer;
+        }
+
+        /**
+         * Evicts the renderer once it has been idle for too long.
+         */
+        @Override
+        public void run() {
+            if (entries.remove(this)) {
+                Log.d(TAG, "ViewRendererPool: releasing an idle renderer");
+                renderer.release();
+            }
+        }
+    }
+
+    private static final Deque<Entry> entries = new ArrayDeque<>();
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Takes an initialized renderer created with the given context out of
+     * the pool, the most recently used one first.
+     *
+     * @return the renderer or {@code null} if there is none.
+     */
+    @Nullable
+    static ViewRenderer acquire(Context context) {
+        Iterator<Entry> it = entries.descendingIterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.renderer.getView().getContext() == context) {
+                it.remove();
+                handler.removeCallbacks(entry);
+                return entry.renderer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the given initialized renderer for later use, unless the pool is
+     * full. If it does, the caller is to remove the renderer from its view.
+     *
+     * @return whether the pool took the renderer, otherwise the caller must
+     * release it.
+     */
+    static boolean recycle(ViewRenderer renderer) {
+        WebRTCModuleOptions options = WebRTCModuleOptions.getInstance();
+        if (entries.size() >= options.rendererPoolSize) {
+            return false;
+        }
+
+        long idleTimeoutMs =
+                options.rendererPoolIdleTimeout > 0 ? options.rendererPoolIdleTimeout : DEFAULT_IDLE_TIMEOUT_MS;
+        Entry entry = new Entry(renderer);
+        entries.add(entry);
+        handler.postDelayed(entry, idleTimeoutMs);
+        return true;
+    }
+}
@@ -1,7 +1,7 @@
 package com.oney.WebRTCModule;
 
+import android.os.SystemClock;
 import android.util.Log;
-import android.util.Pair;
 import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
@@ -23,6 +23,7 @@ import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.oney.WebRTCModule.webrtcutils.H264AndSoftwareVideoDecoderFactory;
 import com.oney.WebRTCModule.webrtcutils.H264AndSoftwareVideoEncoderFactory;
+import com.oney.WebRTCModule.webrtcutils.HardwareCodecCache;
 
 import org.webrtc.*;
 import org.webrtc.audio.AudioDeviceModule;
@@ -35,20 +36,43 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @ReactModule(name = "WebRTCModule")
 public class WebRTCModule extends ReactContextBaseJavaModule {
     static final String TAG = WebRTCModule.class.getCanonicalName();
 
-    PeerConnectionFactory mFactory;
+    // Built by factoryInit, only to be accessed through getFactory() and
+    // getRtpCapabilities(), which wait for it.
+    private PeerConnectionFactory mFactory;
     VideoEncoderFactory mVideoEncoderFactory;
     VideoDecoderFactory mVideoDecoderFactory;
     AudioDeviceModule mAudioDeviceModule;
+    private RtpCapabilitiesCache mRtpCapabilities;
+
+    /**
+     * Builds the PeerConnectionFactory. It either runs on a background thread
+     * started by the constructor or on the first thread which needs the
+     * factory, see {@link WebRTCModuleOptions#lazyFactoryInitialization}.
+     */
+    private final FutureTask<Void> factoryInit;
 
     // Need to expose the peer connection codec factories here to get capabilities
     private final SparseArray<PeerConnectionObserver> mPeerConnectionObservers;
+    private final PeerConnectionPool mPeerConnectionPool;
+    private final NetworkChangeMonitor mNetworkChangeMonitor;
+    // Created once WebRTC is initialized, if certificate pre-generation is enabled.
+    private volatile CertificateCache mCertificateCache;
     final Map<String, MediaStream> localStreams;
 
+    /**
+     * Allocates the handles which identify DataChannels and remote streams.
+     * They are unique across PeerConnections and JS gets their string form
+     * as the reactTag.
+     */
+    private final AtomicInteger nextHandle = new AtomicInteger();
+
     private final GetUserMediaImpl getUserMediaImpl;
     private final DailyWebRTCDevicesManager dailyWebRTCDevicesManager;
 
@@ -56,8 +80,38 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
         super(reactContext);
 
         mPeerConnectionObservers = new SparseArray<>();
+        mPeerConnectionPool = new PeerConnectionPool(this);
+
+        NetworkChangeSource networkChangeSource = WebRTCModuleOptions.getInstance().networkChangeSource;
+        if (networkChangeSource == null) {
+            networkChangeSource = new ConnectivityNetworkChangeSource(reactContext);
+        }
+        mNetworkChangeMonitor = new NetworkChangeMonitor(
+                networkChangeSource,
+                new NetworkChangeMonitor.ObserverPeerConnections(mPeerConnectionObservers),
+                this::sendNetworkChangedEvent,
+                ThreadUtils::runOnExecutor);
         localStreams = new HashMap<>();
 
+        factoryInit = new FutureTask<>(() -> initializeFactory(reactContext), null);
+        if (!WebRTCModuleOptions.getInstance().lazyFactoryInitialization) {
+            new Thread(factoryInit, "WebRTCModule-factory-init").start();
+        }
+
+        getUserMediaImpl = new GetUserMediaImpl(this, reactContext);
+        dailyWebRTCDevicesManager = new DailyWebRTCDevicesManager(this, reactContext);
+        // Enabling to react-native-webrtc automatically start and stop media projection service
+        WebRTCModuleOptions.getInstance().enableMediaProjectionService = true;
+    }
+
+    /**
+     * Initializes WebRTC and builds the PeerConnectionFactory. This loads the
+     * native library, creates the root EGL context and enumerates the media
+     * codecs, hence it's kept out of the constructor.
+     */
+    private void initializeFactory(ReactApplicationContext reactContext) {
+        long startTime = SystemClock.elapsedRealtime();
+
         WebRTCModuleOptions options = WebRTCModuleOptions.getInstance();
 
         AudioDeviceModule adm = options.audioDeviceModule;
@@ -82,8 +136,9 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
             EglBase.Context eglContext = EglUtils.getRootEglBaseContext();
 
             if (eglContext != null) {
-                encoderFactory = new H264AndSoftwareVideoEncoderFactory(eglContext);
-                decoderFactory = new H264AndSoftwareVideoDecoderFactory(eglContext);
+                HardwareCodecCache codecCache = new HardwareCodecCache(reactContext);
+                encoderFactory = new H264AndSoftwareVideoEncoderFactory(eglContext, codecCache);
+                decoderFactory = new H264AndSoftwareVideoDecoderFactory(eglContext, codecCache);
             } else {
                 encoderFactory = new SoftwareVideoEncoderFactory();
                 decoderFactory = new SoftwareVideoDecoderFactory();
@@ -102,6 +157,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                            .setVideoEncoderFactory(encoderFactory)
                            .setVideoDecoderFactory(decoderFactory)
                            .createPeerConnectionFactory();
+        mRtpCapabilities = new RtpCapabilitiesCache(mFactory);
 
         // PeerConnectionFactory now owns the adm native pointer, and we don't need it anymore.
         adm.release();
@@ -111,10 +167,43 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
         mVideoDecoderFactory = decoderFactory;
         mAudioDeviceModule = adm;
 
-        getUserMediaImpl = new GetUserMediaImpl(this, reactContext);
-        dailyWebRTCDevicesManager = new DailyWebRTCDevicesManager(this, reactContext);
-        // Enabling to react-native-webrtc automatically start and stop media projection service
-        WebRTCModuleOptions.getInstance().enableMediaProjectionService = true;
+        if (options.certificateLifetime > 0) {
+            mCertificateCache = new CertificateCache(
+                    options.certificateLifetime, options.persistCertificates ? reactContext : null);
+            for (PeerConnection.KeyType keyType : options.certificateKeyTypes) {
+                mCertificateCache.prepare(keyType);
+            }
+        }
+
+        Log.d(TAG, "PeerConnectionFactory initialized in " + (SystemClock.elapsedRealtime() - startTime) + "ms");
+    }
+
+    /**
+     * Waits for the PeerConnectionFactory to be built, building it on the
+     * calling thread if nobody started doing so yet.
+     */
+    private void awaitFactory() {
+        // No-op if already running on another thread or done.
+        factoryInit.run();
+
+        try {
+            factoryInit.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("PeerConnectionFactory initialization failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the PeerConnectionFactory", e);
+        }
+    }
+
+    PeerConnectionFactory getFactory() {
+        awaitFactory();
+        return mFactory;
+    }
+
+    RtpCapabilitiesCache getRtpCapabilities() {
+        awaitFactory();
+        return mRtpCapabilities;
     }
 
     @NonNull
@@ -123,6 +212,27 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
         return "WebRTCModule";
     }
 
+    /**
+     * Frees the native resources when the React instance goes away, e.g. on
+     * reload, since JS won't dispose its PeerConnections anymore.
+     */
+    @Override
+    public void invalidate() {
+        ThreadUtils.runOnExecutor(() -> {
+            mPeerConnectionPool.clear();
+
+            for (int i = 0; i < mPeerConnectionObservers.size(); i++) {
+                mPeerConnectionObservers.valueAt(i).dispose();
+            }
+            mPeerConnectionObservers.clear();
+
+            // No PeerConnection is left, so this stops the network source.
+            mNetworkChangeMonitor.update();
+        });
+
+        super.invalidate();
+    }
+
     private PeerConnection getPeerConnection(int id) {
         PeerConnectionObserver pco = mPeerConnectionObservers.get(id);
         return (pco == null) ? null : pco.getPeerConnection();
@@ -134,6 +244,20 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                 .emit(eventName, params);
     }
 
+    private void sendNetworkChangedEvent(
+            @Nullable String previousNetworkType, @Nullable String networkType, List<Integer> restartedPcIds) {
+        WritableArray pcIds = Arguments.createArray();
+        for (int pcId : restartedPcIds) {
+            pcIds.pushInt(pcId);
+        }
+
+        WritableMap params = Arguments.createMap();
+        params.putString("previousNetworkType", previousNetworkType);
+        params.putString("networkType", networkType);
+        params.putArray("restartedPcIds", pcIds);
+        sendEvent("peerConnectionNetworkChanged", params);
+    }
+
     private PeerConnection.IceServer createIceServer(String url) {
         return PeerConnection.IceServer.builder(url).createIceServer();
     }
@@ -177,6 +301,10 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
         return iceServers;
     }
 
+    /**
+     * @param map the configuration, with its preset (non-standard) applied
+     * already, see {@link RTCConfigurationPresets#apply}.
+     */
     private PeerConnection.RTCConfiguration parseRTCConfiguration(ReadableMap map) {
         ReadableArray iceServersArray = null;
         if (map != null && map.hasKey("iceServers")) {
@@ -373,23 +501,203 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
             conf.presumeWritableWhenFullyRelayed = v;
         }
 
+        // iceCheckIntervalStrongConnectivityMs (private api)
+        if (map.hasKey("iceCheckIntervalStrongConnectivityMs")
+                && map.getType("iceCheckIntervalStrongConnectivityMs") == ReadableType.Number) {
+            final int v = map.getInt("iceCheckIntervalStrongConnectivityMs");
+            if (v > 0) {
+                conf.iceCheckIntervalStrongConnectivityMs = v;
+            }
+        }
+
+        // iceCheckIntervalWeakConnectivityMs (private api)
+        if (map.hasKey("iceCheckIntervalWeakConnectivityMs")
+                && map.getType("iceCheckIntervalWeakConnectivityMs") == ReadableType.Number) {
+            final int v = map.getInt("iceCheckIntervalWeakConnectivityMs");
+            if (v > 0) {
+                conf.iceCheckIntervalWeakConnectivityMs = v;
+            }
+        }
+
+        // iceCheckMinInterval (private api)
+        if (map.hasKey("iceCheckMinInterval") && map.getType("iceCheckMinInterval") == ReadableType.Number) {
+            final int v = map.getInt("iceCheckMinInterval");
+            if (v > 0) {
+                conf.iceCheckMinInterval = v;
+            }
+        }
+
+        // iceUnwritableTimeMs (private api)
+        if (map.hasKey("iceUnwritableTimeMs") && map.getType("iceUnwritableTimeMs") == ReadableType.Number) {
+            final int v = map.getInt("iceUnwritableTimeMs");
+            if (v > 0) {
+                conf.iceUnwritableTimeMs = v;
+            }
+        }
+
+        // iceUnwritableMinChecks (private api)
+        if (map.hasKey("iceUnwritableMinChecks") && map.getType("iceUnwritableMinChecks") == ReadableType.Number) {
+            final int v = map.getInt("iceUnwritableMinChecks");
+            if (v > 0) {
+                conf.iceUnwritableMinChecks = v;
+            }
+        }
+
+        // stunCandidateKeepaliveIntervalMs (private api)
+        if (map.hasKey("stunCandidateKeepaliveIntervalMs")
+                && map.getType("stunCandidateKeepaliveIntervalMs") == ReadableType.Number) {
+            final int v = map.getInt("stunCandidateKeepaliveIntervalMs");
+            if (v > 0) {
+                conf.stunCandidateKeepaliveIntervalMs = v;
+            }
+        }
+
+        // stableWritableConnectionPingIntervalMs (private api)
+        if (map.hasKey("stableWritableConnectionPingIntervalMs")
+                && map.getType("stableWritableConnectionPingIntervalMs") == ReadableType.Number) {
+            final int v = map.getInt("stableWritableConnectionPingIntervalMs");
+            if (v > 0) {
+                conf.stableWritableConnectionPingIntervalMs = v;
+            }
+        }
+
+        // maxIPv6Networks (private api)
+        if (map.hasKey("maxIPv6Networks") && map.getType("maxIPv6Networks") == ReadableType.Number) {
+            final int v = map.getInt("maxIPv6Networks");
+            if (v >= 0) {
+                conf.maxIPv6Networks = v;
+            }
+        }
+
+        // screencastMinBitrate (private api)
+        if (map.hasKey("screencastMinBitrate") && map.getType("screencastMinBitrate") == ReadableType.Number) {
+            final int v = map.getInt("screencastMinBitrate");
+            if (v > 0) {
+                conf.screencastMinBitrate = v;
+            }
+        }
+
+        // surfaceIceCandidatesOnIceTransportTypeChanged (private api)
+        if (map.hasKey("surfaceIceCandidatesOnIceTransportTypeChanged")
+                && map.getType("surfaceIceCandidatesOnIceTransportTypeChanged") == ReadableType.Boolean) {
+            final boolean v = map.getBoolean("surfaceIceCandidatesOnIceTransportTypeChanged");
+            conf.surfaceIceCandidatesOnIceTransportTypeChanged = v;
+        }
+
+        // disableIPv6OnWifi (private api)
+        if (map.hasKey("disableIPv6OnWifi") && map.getType("disableIPv6OnWifi") == ReadableType.Boolean) {
+            final boolean v = map.getBoolean("disableIPv6OnWifi");
+            conf.disableIPv6OnWifi = v;
+        }
+
+        // enableDscp (private api)
+        if (map.hasKey("enableDscp") && map.getType("enableDscp") == ReadableType.Boolean) {
+            final boolean v = map.getBoolean("enableDscp");
+            conf.enableDscp = v;
+        }
+
+        // enableCpuOveruseDetection (private api)
+        if (map.hasKey("enableCpuOveruseDetection")
+                && map.getType("enableCpuOveruseDetection") == ReadableType.Boolean) {
+            final boolean v = map.getBoolean("enableCpuOveruseDetection");
+            conf.enableCpuOveruseDetection = v;
+        }
+
+        // suspendBelowMinBitrate (private api)
+        if (map.hasKey("suspendBelowMinBitrate") && map.getType("suspendBelowMinBitrate") == ReadableType.Boolean) {
+            final boolean v = map.getBoolean("suspendBelowMinBitrate");
+            conf.suspendBelowMinBitrate = v;
+        }
+
+        // offerExtmapAllowMixed (private api)
+        if (map.hasKey("offerExtmapAllowMixed") && map.getType("offerExtmapAllowMixed") == ReadableType.Boolean) {
+            final boolean v = map.getBoolean("offerExtmapAllowMixed");
+            conf.offerExtmapAllowMixed = v;
+        }
+
+        // networkPreference (private api)
+        if (map.hasKey("networkPreference") && map.getType("networkPreference") == ReadableType.String) {
+            final String v = map.getString("networkPreference");
+            if (v != null) {
+                switch (v) {
+                    case "ethernet":
+                        conf.networkPreference = PeerConnection.AdapterType.ETHERNET;
+                        break;
+                    case "wifi":
+                        conf.networkPreference = PeerConnection.AdapterType.WIFI;
+                        break;
+                    case "cellular":
+                        conf.networkPreference = PeerConnection.AdapterType.CELLULAR;
+                        break;
+                    case "vpn":
+                        conf.networkPreference = PeerConnection.AdapterType.VPN;
+                        break;
+                    case "loopback":
+                        conf.networkPreference = PeerConnection.AdapterType.LOOPBACK;
+                        break;
+                }
+            }
+        }
+
+        // turnPortPrunePolicy (private api)
+        if (map.hasKey("turnPortPrunePolicy") && map.getType("turnPortPrunePolicy") == ReadableType.String) {
+            final String v = map.getString("turnPortPrunePolicy");
+            if (v != null) {
+                switch (v) {
+                    case "no_prune":
+                        conf.turnPortPrunePolicy = PeerConnection.PortPrunePolicy.NO_PRUNE;
+                        break;
+                    case "prune_based_on_priority":
+                        conf.turnPortPrunePolicy = PeerConnection.PortPrunePolicy.PRUNE_BASED_ON_PRIORITY;
+                        break;
+                    case "keep_first_ready":
+                        conf.turnPortPrunePolicy = PeerConnection.PortPrunePolicy.KEEP_FIRST_READY;
+                        break;
+                }
+            }
+        }
+
         return conf;
     }
 
+    /**
+     * Sets a pre-generated certificate of the configured key type, if ready,
+     * so the PeerConnection doesn't need to generate one. Only for new
+     * PeerConnections: setConfiguration() rejects any certificate change.
+     */
+    private void setCertificate(PeerConnection.RTCConfiguration conf) {
+        CertificateCache certificateCache = mCertificateCache;
+        if (certificateCache != null && conf.certificate == null) {
+            conf.certificate = certificateCache.get(conf.keyType);
+        }
+    }
+
     @ReactMethod(isBlockingSynchronousMethod = true)
-    public boolean peerConnectionInit(ReadableMap configuration, int id) {
+    public boolean peerConnectionInit(ReadableMap rawConfiguration, int id) {
+        long initTime = SystemClock.elapsedRealtime();
+        // The preset may set non-standard members too, so the merged
+        // configuration is used throughout.
+        ReadableMap configuration = RTCConfigurationPresets.apply(rawConfiguration);
         PeerConnection.RTCConfiguration rtcConfiguration = parseRTCConfiguration(configuration);
+        setCertificate(rtcConfiguration);
 
         try {
             return (boolean) ThreadUtils
                     .submitToExecutor(() -> {
-                        PeerConnectionObserver observer = new PeerConnectionObserver(this, id);
-                        PeerConnection peerConnection = mFactory.createPeerConnection(rtcConfiguration, observer);
-                        if (peerConnection == null) {
-                            return false;
+                        PeerConnectionObserver observer = mPeerConnectionPool.acquire(configuration, id);
+                        if (observer == null) {
+                            observer = new PeerConnectionObserver(this, id);
+                            PeerConnection peerConnection =
+                                    getFactory().createPeerConnection(rtcConfiguration, observer);
+                            if (peerConnection == null) {
+                                return false;
+                            }
+                            observer.setPeerConnection(peerConnection);
                         }
-                        observer.setPeerConnection(peerConnection);
+                        observer.getTimeline().markAt(ConnectionTimeline.INIT, initTime);
+                        applyObserverConfiguration(observer, configuration);
                         mPeerConnectionObservers.put(id, observer);
+                        mNetworkChangeMonitor.update();
                         return true;
                     })
                     .get();
@@ -399,6 +707,37 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Configures the pool of warm PeerConnections, see {@link PeerConnectionPool}.
+     */
+    @ReactMethod
+    public void peerConnectionPoolConfigure(ReadableMap rawConfiguration, int size, double ttl) {
+        ReadableMap configuration = RTCConfigurationPresets.apply(rawConfiguration);
+        PeerConnection.RTCConfiguration rtcConfiguration = parseRTCConfiguration(configuration);
+        setCertificate(rtcConfiguration);
+
+        ThreadUtils.runOnExecutor(() -> {
+            mPeerConnectionPool.configure(configuration, rtcConfiguration, size, (long) ttl);
+        });
+    }
+
+    int allocateHandle() {
+        return nextHandle.getAndIncrement();
+    }
+
+    /**
+     * Parses the string form of a handle, as used for reactTags.
+     *
+     * @return the handle or -1 if the given string is not a handle.
+     */
+    static int parseHandle(String reactTag) {
+        try {
+            return Integer.parseInt(reactTag);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     MediaStream getStreamForReactTag(String streamReactTag) {
         // This function _only_ gets called from WebRTCView, in the UI thread.
         // Hence make sure we run this code in the executor or we run at the risk
@@ -412,9 +751,14 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                             return stream;
                         }
 
+                        int handle = parseHandle(streamReactTag);
+                        if (handle == -1) {
+                            return null;
+                        }
+
                         for (int i = 0, size = mPeerConnectionObservers.size(); i < size; i++) {
                             PeerConnectionObserver pco = mPeerConnectionObservers.valueAt(i);
-                            stream = pco.remoteStreams.get(streamReactTag);
+                            stream = pco.remoteStreams.get(handle);
                             if (stream != null) {
                                 return stream;
                             }
@@ -489,39 +833,121 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                             return null;
                         }
 
-                        RtpTransceiver transceiver = null;
-                        if (options.hasKey("type")) {
-                            String kind = options.getString("type");
-                            transceiver = pco.addTransceiver(SerializeUtils.parseMediaType(kind),
-                                    SerializeUtils.parseTransceiverOptions(options.getMap("init")));
-                        } else if (options.hasKey("trackId")) {
-                            String trackId = options.getString("trackId");
-                            MediaStreamTrack track = getLocalTrack(trackId);
-                            transceiver = pco.addTransceiver(
-                                    track, SerializeUtils.parseTransceiverOptions(options.getMap("init")));
-
-                        } else {
-                            // This should technically never happen as the JS side checks for that.
-                            Log.d(TAG, "peerConnectionAddTransceiver() no type nor trackId provided in options");
+                        TransceiverSpec spec;
+                        try {
+                            spec = parseTransceiverSpec(options);
+                        } catch (RuntimeException | Error e) {
+                            Log.d(TAG, "peerConnectionAddTransceiver() " + e.getMessage());
                             return null;
                         }
 
-                        if (transceiver == null) {
-                            Log.d(TAG, "peerConnectionAddTransceiver() Error adding transceiver");
+                        return addTransceiver(pco, id, spec, "peerConnectionAddTransceiver()");
+                    })
+                    .get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.d(TAG, "peerConnectionAddTransceiver() " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds several transceivers at once, in a single executor task. All the
+     * specs are validated first, so none is added if any of them is invalid,
+     * in which case null is returned. Otherwise the returned array has one
+     * entry per spec, in order, which is null if the corresponding
+     * transceiver could not be added nonetheless.
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableArray peerConnectionAddTransceivers(int id, ReadableArray specs) {
+        try {
+            return (WritableArray) ThreadUtils
+                    .submitToExecutor((Callable<Object>) () -> {
+                        PeerConnectionObserver pco = mPeerConnectionObservers.get(id);
+                        if (pco == null || pco.getPeerConnection() == null) {
+                            Log.d(TAG, "peerConnectionAddTransceivers() peerConnection is null");
                             return null;
                         }
-                        WritableMap params = Arguments.createMap();
-                        // We need to get a unique order at which the transceiver was created
-                        // to reorder the cached array of transceivers on the JS layer.
-                        params.putInt("transceiverOrder", pco.getNextTransceiverId());
-                        params.putMap("transceiver", SerializeUtils.serializeTransceiver(id, transceiver));
-                        return params;
+                        if (pco.getPeerConnection().signalingState() == PeerConnection.SignalingState.CLOSED) {
+                            Log.d(TAG, "peerConnectionAddTransceivers() peerConnection is closed");
+                            return null;
+                        }
+
+                        List<TransceiverSpec> parsedSpecs = new ArrayList<>(specs.size());
+                        for (int i = 0; i < specs.size(); i++) {
+                            try {
+                                parsedSpecs.add(parseTransceiverSpec(specs.getMap(i)));
+                            } catch (RuntimeException | Error e) {
+                                Log.d(TAG, "peerConnectionAddTransceivers() spec " + i + ": " + e.getMessage());
+                                return null;
+                            }
+                        }
+
+                        WritableArray results = Arguments.createArray();
+                        for (TransceiverSpec spec : parsedSpecs) {
+                            WritableMap result = addTransceiver(pco, id, spec, "peerConnectionAddTransceivers()");
+                            if (result != null) {
+                                results.pushMap(result);
+                            } else {
+                                results.pushNull();
+                            }
+                        }
+                        return results;
                     })
                     .get();
         } catch (InterruptedException | ExecutionException e) {
-            Log.d(TAG, "peerConnectionAddTransceiver() " + e.getMessage());
+            Log.d(TAG, "peerConnectionAddTransceivers() " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A transceiver to be added, either of a media type or for a local track.
+     */
+    private static class TransceiverSpec {
+        @Nullable MediaStreamTrack.MediaType mediaType;
+        @Nullable MediaStreamTrack track;
+        @Nullable RtpTransceiver.RtpTransceiverInit init;
+    }
+
+    /**
+     * Parses the options of a transceiver, throws if they are invalid.
+     */
+    private TransceiverSpec parseTransceiverSpec(ReadableMap options) {
+        TransceiverSpec spec = new TransceiverSpec();
+        if (options.hasKey("type")) {
+            spec.mediaType = SerializeUtils.parseMediaType(options.getString("type"));
+        } else if (options.hasKey("trackId")) {
+            String trackId = options.getString("trackId");
+            spec.track = getLocalTrack(trackId);
+            if (spec.track == null) {
+                throw new IllegalArgumentException("couldn't find track " + trackId);
+            }
+        } else {
+            // This should technically never happen as the JS side checks for that.
+            throw new IllegalArgumentException("no type nor trackId provided in options");
+        }
+        spec.init = SerializeUtils.parseTransceiverOptions(options.getMap("init"));
+        return spec;
+    }
+
+    private WritableMap addTransceiver(PeerConnectionObserver pco, int id, TransceiverSpec spec, String tag) {
+        RtpTransceiver transceiver;
+        if (spec.track != null) {
+            transceiver = pco.addTransceiver(spec.track, spec.init);
+        } else {
+            transceiver = pco.addTransceiver(spec.mediaType, spec.init);
+        }
+
+        if (transceiver == null) {
+            Log.d(TAG, tag + " Error adding transceiver");
             return null;
         }
+        WritableMap params = Arguments.createMap();
+        // We need to get a unique order at which the transceiver was created
+        // to reorder the cached array of transceivers on the JS layer.
+        params.putInt("transceiverOrder", pco.getNextTransceiverId());
+        params.putMap("transceiver", SerializeUtils.serializeTransceiver(id, transceiver));
+        return params;
     }
 
     @ReactMethod(isBlockingSynchronousMethod = true)
@@ -550,7 +976,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                                 }
                             }
                         }
-                        RtpSender sender = pco.getPeerConnection().addTrack(track, streamIds);
+                        RtpSender sender = pco.addTrack(track, streamIds);
 
                         // Need to get the corresponding transceiver as well
                         RtpTransceiver transceiver = pco.getTransceiver(sender.id());
@@ -616,6 +1042,8 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                 RtpParameters params = sender.getParameters();
                 params = SerializeUtils.updateRtpParameters(options, params);
                 sender.setParameters(params);
+                // JS gets the new parameters here, outside of the transceivers info diffing.
+                pco.forgetTransceiverState(senderId);
                 promise.resolve(SerializeUtils.serializeRtpParameters(sender.getParameters()));
             } catch (Exception e) {
                 Log.d(TAG, "senderSetParameters: " + e.getMessage());
@@ -728,39 +1156,29 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
-                // Convert JSON codec capabilities to the actual objects.
+                // Convert JSON codec capabilities to the actual objects, sender codecs take
+                // precedence over receiver ones.
                 RtpTransceiver.RtpTransceiverDirection direction = transceiver.getDirection();
-                List<Pair<Map<String, Object>, RtpCapabilities.CodecCapability>> availableCodecs = new ArrayList<>();
-
-                if (direction.equals(RtpTransceiver.RtpTransceiverDirection.SEND_RECV)
-                        || direction.equals(RtpTransceiver.RtpTransceiverDirection.SEND_ONLY)) {
-                    RtpCapabilities capabilities = mFactory.getRtpSenderCapabilities(transceiver.getMediaType());
-                    for (RtpCapabilities.CodecCapability codec : capabilities.codecs) {
-                        Map<String, Object> codecDict = SerializeUtils.serializeRtpCapabilitiesCodec(codec).toHashMap();
-                        availableCodecs.add(new Pair<>(codecDict, codec));
-                    }
-                }
-
-                if (direction.equals(RtpTransceiver.RtpTransceiverDirection.SEND_RECV)
-                        || direction.equals(RtpTransceiver.RtpTransceiverDirection.RECV_ONLY)) {
-                    RtpCapabilities capabilities = mFactory.getRtpReceiverCapabilities(transceiver.getMediaType());
-                    for (RtpCapabilities.CodecCapability codec : capabilities.codecs) {
-                        Map<String, Object> codecDict = SerializeUtils.serializeRtpCapabilitiesCodec(codec).toHashMap();
-                        availableCodecs.add(new Pair<>(codecDict, codec));
-                    }
-                }
+                MediaStreamTrack.MediaType mediaType = transceiver.getMediaType();
+                boolean sending = direction.equals(RtpTransceiver.RtpTransceiverDirection.SEND_RECV)
+                        || direction.equals(RtpTransceiver.RtpTransceiverDirection.SEND_ONLY);
+                boolean receiving = direction.equals(RtpTransceiver.RtpTransceiverDirection.SEND_RECV)
+                        || direction.equals(RtpTransceiver.RtpTransceiverDirection.RECV_ONLY);
 
                 // Codec preferences is order sensitive.
                 List<RtpCapabilities.CodecCapability> codecsToSet = new ArrayList<>();
 
                 for (int i = 0; i < codecPreferences.size(); i++) {
-                    Map<String, Object> codecPref = codecPreferences.getMap(i).toHashMap();
-                    for (Pair<Map<String, Object>, RtpCapabilities.CodecCapability> pair : availableCodecs) {
-                        Map<String, Object> availableCodecDict = pair.first;
-                        if (codecPref.equals(availableCodecDict)) {
-                            codecsToSet.add(pair.second);
-                            break;
-                        }
+                    ReadableMap codecPref = codecPreferences.getMap(i);
+                    RtpCapabilities.CodecCapability codec = null;
+                    if (sending) {
+                        codec = getRtpCapabilities().findSenderCodec(mediaType, codecPref);
+                    }
+                    if (codec == null && receiving) {
+                        codec = getRtpCapabilities().findReceiverCodec(mediaType, codecPref);
+                    }
+                    if (codec != null) {
+                        codecsToSet.add(codec);
                     }
                 }
 
@@ -793,7 +1211,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void mediaStreamCreate(String id) {
         ThreadUtils.runOnExecutor(() -> {
-            MediaStream mediaStream = mFactory.createLocalMediaStream(id);
+            MediaStream mediaStream = getFactory().createLocalMediaStream(id);
             localStreams.put(id, mediaStream);
         });
     }
@@ -964,48 +1382,111 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
         });
     }
 
+    @ReactMethod
+    public void mediaStreamTrackSetVideoEffects(String id, ReadableArray names) {
+        ThreadUtils.runOnExecutor(() -> { getUserMediaImpl.setVideoEffects(id, names); });
+    }
+
+    @ReactMethod
+    public void peerConnectionSetConfiguration(ReadableMap rawConfiguration, int id) {
+        ThreadUtils.runOnExecutor(() -> {
+            PeerConnection peerConnection = getPeerConnection(id);
+            if (peerConnection == null) {
+                Log.d(TAG, "peerConnectionSetConfiguration() peerConnection is null");
+                return;
+            }
+            ReadableMap configuration = RTCConfigurationPresets.apply(rawConfiguration);
+            peerConnection.setConfiguration(parseRTCConfiguration(configuration));
+            applyObserverConfiguration(mPeerConnectionObservers.get(id), configuration);
+            mNetworkChangeMonitor.update();
+        });
+    }
+
     /**
-     * This serializes the transceivers current direction and mid and returns them
-     * for update when an sdp negotiation/renegotiation happens
+     * Applies the non-standard configuration members which are implemented
+     * by {@link PeerConnectionObserver} rather than by libwebrtc.
      */
-    private ReadableArray getTransceiversInfo(PeerConnection peerConnection) {
-        WritableArray transceiverUpdates = Arguments.createArray();
+    private void applyObserverConfiguration(PeerConnectionObserver pco, ReadableMap configuration) {
+        if (configuration == null) {
+            return;
+        }
+
+        // negotiationNeededDebounce (non-standard)
+        if (configuration.hasKey("negotiationNeededDebounce")
+                && configuration.getType("negotiationNeededDebounce") == ReadableType.Number) {
+            pco.setRenegotiationNeededDebounce((long) configuration.getDouble("negotiationNeededDebounce"));
+        }
 
-        for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
-            WritableMap transceiverUpdate = Arguments.createMap();
+        // compactTrackEvents (non-standard)
+        if (configuration.hasKey("compactTrackEvents")
+                && configuration.getType("compactTrackEvents") == ReadableType.Boolean) {
+            pco.setCompactTrackEvents(configuration.getBoolean("compactTrackEvents"));
+        }
 
-            RtpTransceiver.RtpTransceiverDirection direction = transceiver.getCurrentDirection();
-            if (direction != null) {
-                String directionSerialized = SerializeUtils.serializeDirection(direction);
-                transceiverUpdate.putString("currentDirection", directionSerialized);
-            }
+        // restartIceOnNetworkChange (non-standard)
+        if (configuration.hasKey("restartIceOnNetworkChange")
+                && configuration.getType("restartIceOnNetworkChange") == ReadableType.Boolean) {
+            pco.setRestartIceOnNetworkChange(configuration.getBoolean("restartIceOnNetworkChange"));
+        }
 
-            transceiverUpdate.putString("transceiverId", transceiver.getSender().id());
-            transceiverUpdate.putString("mid", transceiver.getMid());
-            transceiverUpdate.putBoolean("isStopped", transceiver.isStopped());
-            transceiverUpdate.putMap("senderRtpParameters",
-                    SerializeUtils.serializeRtpParameters(transceiver.getSender().getParameters()));
-            transceiverUpdate.putMap("receiverRtpParameters",
-                    SerializeUtils.serializeRtpParameters(transceiver.getReceiver().getParameters()));
-            transceiverUpdates.pushMap(transceiverUpdate);
+        // iceCandidateFilter (non-standard)
+        if (configuration.hasKey("iceCandidateFilter")) {
+            pco.setIceCandidateFilter(configuration.getType("iceCandidateFilter") == ReadableType.Array
+                            ? IceCandidateFilter.fromReadableArray(configuration.getArray("iceCandidateFilter"))
+                            : null);
+        }
+
+        // mediaFlowWatchdog (non-standard)
+        if (configuration.hasKey("mediaFlowWatchdog")) {
+            ReadableType type = configuration.getType("mediaFlowWatchdog");
+            if (type == ReadableType.Map) {
+                pco.setMediaFlowWatchdog(configuration.getMap("mediaFlowWatchdog"));
+            } else if (type == ReadableType.Boolean && configuration.getBoolean("mediaFlowWatchdog")) {
+                pco.setMediaFlowWatchdog(Arguments.createMap());
+            } else {
+                pco.setMediaFlowWatchdog(null);
+            }
         }
-        return transceiverUpdates;
     }
 
     @ReactMethod
-    public void mediaStreamTrackSetVideoEffects(String id, ReadableArray names) {
-        ThreadUtils.runOnExecutor(() -> { getUserMediaImpl.setVideoEffects(id, names); });
+    public void peerConnectionSetSdpTransform(int id, ReadableMap rules, Promise promise) {
+        ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(id);
+            if (pco == null || pco.getPeerConnection() == null) {
+                Log.d(TAG, "peerConnectionSetSdpTransform() peerConnection is null");
+                promise.reject(new Exception("PeerConnection not found"));
+                return;
+            }
+
+            try {
+                pco.setSdpTransformer(rules != null ? new SdpTransformer(rules) : null);
+                promise.resolve(null);
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        });
     }
 
     @ReactMethod
-    public void peerConnectionSetConfiguration(ReadableMap configuration, int id) {
+    public void sdpTransform(String sdp, ReadableMap rules, Promise promise) {
         ThreadUtils.runOnExecutor(() -> {
-            PeerConnection peerConnection = getPeerConnection(id);
-            if (peerConnection == null) {
-                Log.d(TAG, "peerConnectionSetConfiguration() peerConnection is null");
-                return;
+            try {
+                promise.resolve(new SdpTransformer(rules).transform(sdp));
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        });
+    }
+
+    @ReactMethod
+    public void sdpParse(String sdp, Promise promise) {
+        ThreadUtils.runOnExecutor(() -> {
+            try {
+                promise.resolve(SdpTransformer.parse(sdp));
+            } catch (Exception e) {
+                promise.reject(e);
             }
-            peerConnection.setConfiguration(parseRTCConfiguration(configuration));
         });
     }
 
@@ -1022,7 +1503,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
             }
 
             List<String> receiversIds = new ArrayList<>();
-            for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
+            for (RtpTransceiver transceiver : pco.getTransceivers()) {
                 receiversIds.add(transceiver.getReceiver().id());
             }
 
@@ -1034,18 +1515,22 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
 
                 @Override
                 public void onCreateSuccess(SessionDescription sdp) {
+                    pco.getTimeline().mark(ConnectionTimeline.CREATE_OFFER);
                     ThreadUtils.runOnExecutor(() -> {
+                        // offerToReceiveAudio / offerToReceiveVideo may have added transceivers.
+                        pco.invalidateTransceivers();
+
                         WritableMap params = Arguments.createMap();
                         WritableMap sdpInfo = Arguments.createMap();
 
-                        sdpInfo.putString("sdp", sdp.description);
+                        sdpInfo.putString("sdp", pco.transformSdp(pco.removeFilteredCandidates(sdp.description)));
                         sdpInfo.putString("type", sdp.type.canonicalForm());
 
-                        params.putArray("transceiversInfo", getTransceiversInfo(peerConnection));
+                        params.putArray("transceiversInfo", pco.getTransceiversInfo());
                         params.putMap("sdpInfo", sdpInfo);
 
                         WritableArray newTransceivers = Arguments.createArray();
-                        for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
+                        for (RtpTransceiver transceiver : pco.getTransceivers()) {
                             if (!receiversIds.contains(transceiver.getReceiver().id())) {
                                 WritableMap newTransceiver = Arguments.createMap();
                                 newTransceiver.putInt("transceiverOrder", pco.getNextTransceiverId());
@@ -1075,6 +1560,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void peerConnectionCreateAnswer(int id, ReadableMap options, Promise promise) {
         ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(id);
             PeerConnection peerConnection = getPeerConnection(id);
 
             if (peerConnection == null) {
@@ -1091,14 +1577,15 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
 
                 @Override
                 public void onCreateSuccess(SessionDescription sdp) {
+                    pco.getTimeline().mark(ConnectionTimeline.CREATE_ANSWER);
                     ThreadUtils.runOnExecutor(() -> {
                         WritableMap params = Arguments.createMap();
                         WritableMap sdpInfo = Arguments.createMap();
 
-                        sdpInfo.putString("sdp", sdp.description);
+                        sdpInfo.putString("sdp", pco.transformSdp(pco.removeFilteredCandidates(sdp.description)));
                         sdpInfo.putString("type", sdp.type.canonicalForm());
 
-                        params.putArray("transceiversInfo", getTransceiversInfo(peerConnection));
+                        params.putArray("transceiversInfo", pco.getTransceiversInfo());
                         params.putMap("sdpInfo", sdpInfo);
 
                         promise.resolve(params);
@@ -1119,6 +1606,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void peerConnectionSetLocalDescription(int pcId, ReadableMap desc, Promise promise) {
         ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(pcId);
             PeerConnection peerConnection = getPeerConnection(pcId);
             if (peerConnection == null) {
                 Log.d(TAG, "peerConnectionSetLocalDescription() peerConnection is null");
@@ -1132,7 +1620,12 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
 
                 @Override
                 public void onSetSuccess() {
+                    pco.getTimeline().mark(ConnectionTimeline.SET_LOCAL_DESCRIPTION);
                     ThreadUtils.runOnExecutor(() -> {
+                        // Applying a description may add or remove transceivers.
+                        pco.invalidateTransceivers();
+                        pco.pruneFilteredCandidates();
+
                         WritableMap newSdpMap = Arguments.createMap();
                         WritableMap params = Arguments.createMap();
 
@@ -1140,11 +1633,11 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                         // Can happen when doing a rollback.
                         if (newSdp != null) {
                             newSdpMap.putString("type", newSdp.type.canonicalForm());
-                            newSdpMap.putString("sdp", newSdp.description);
+                            newSdpMap.putString("sdp", pco.removeFilteredCandidates(newSdp.description));
                         }
 
                         params.putMap("sdpInfo", newSdpMap);
-                        params.putArray("transceiversInfo", getTransceiversInfo(peerConnection));
+                        params.putArray("transceiversInfo", pco.getTransceiversInfo());
 
                         promise.resolve(params);
                     });
@@ -1187,7 +1680,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                     SessionDescription.Type.fromCanonicalForm(desc.getString("type")), desc.getString("sdp"));
 
             List<String> receiversIds = new ArrayList<>();
-            for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
+            for (RtpTransceiver transceiver : pco.getTransceivers()) {
                 receiversIds.add(transceiver.getReceiver().id());
             }
 
@@ -1197,7 +1690,11 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
 
                 @Override
                 public void onSetSuccess() {
+                    pco.getTimeline().mark(ConnectionTimeline.SET_REMOTE_DESCRIPTION);
                     ThreadUtils.runOnExecutor(() -> {
+                        // Applying a description may add or remove transceivers.
+                        pco.invalidateTransceivers();
+
                         WritableMap newSdpMap = Arguments.createMap();
                         WritableMap params = Arguments.createMap();
 
@@ -1208,11 +1705,11 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                             newSdpMap.putString("sdp", newSdp.description);
                         }
 
-                        params.putArray("transceiversInfo", getTransceiversInfo(peerConnection));
+                        params.putArray("transceiversInfo", pco.getTransceiversInfo());
                         params.putMap("sdpInfo", newSdpMap);
 
                         WritableArray newTransceivers = Arguments.createArray();
-                        for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
+                        for (RtpTransceiver transceiver : pco.getTransceivers()) {
                             if (!receiversIds.contains(transceiver.getReceiver().id())) {
                                 WritableMap newTransceiver = Arguments.createMap();
                                 newTransceiver.putInt("transceiverOrder", pco.getNextTransceiverId());
@@ -1255,7 +1752,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                             return Arguments.createMap();
                         }
 
-                        RtpCapabilities capabilities = mFactory.getRtpReceiverCapabilities(mediaType);
+                        RtpCapabilities capabilities = getRtpCapabilities().getReceiverCapabilities(mediaType);
                         return SerializeUtils.serializeRtpCapabilities(capabilities);
                     })
                     .get();
@@ -1279,7 +1776,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                             return Arguments.createMap();
                         }
 
-                        RtpCapabilities capabilities = mFactory.getRtpSenderCapabilities(mediaType);
+                        RtpCapabilities capabilities = getRtpCapabilities().getSenderCapabilities(mediaType);
                         return SerializeUtils.serializeRtpCapabilities(capabilities);
                     })
                     .get();
@@ -1392,19 +1889,36 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
             }
             pco.dispose();
             mPeerConnectionObservers.remove(id);
+            mNetworkChangeMonitor.update();
+        });
+    }
+
+    @ReactMethod
+    public void peerConnectionGetTimeline(int pcId, Promise promise) {
+        ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(pcId);
+            if (pco == null) {
+                Log.d(TAG, "peerConnectionGetTimeline() peerConnection is null");
+                promise.reject(new Exception("PeerConnection not found"));
+                return;
+            }
+
+            promise.resolve(pco.getTimeline().toWritableMap());
         });
     }
 
     @ReactMethod
     public void peerConnectionRestartIce(int pcId) {
         ThreadUtils.runOnExecutor(() -> {
-            PeerConnection peerConnection = getPeerConnection(pcId);
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(pcId);
+            PeerConnection peerConnection = pco != null ? pco.getPeerConnection() : null;
             if (peerConnection == null) {
                 Log.w(TAG, "peerConnectionRestartIce() peerConnection is null");
                 return;
             }
 
             peerConnection.restartIce();
+            pco.pruneFilteredCandidates();
         });
     }
 
@@ -1457,6 +1971,7 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void dataChannelSend(int peerConnectionId, String reactTag, String data, String type) {
+        final long queuedAtNs = System.nanoTime();
         ThreadUtils.runOnExecutor(() -> {
             // Forward to PeerConnectionObserver which deals with DataChannels
             // because DataChannel is owned by PeerConnection.
@@ -1466,7 +1981,55 @@ public class WebRTCModule extends ReactContextBaseJavaModule {
                 return;
             }
 
-            pco.dataChannelSend(reactTag, data, type);
+            pco.dataChannelSend(reactTag, data, type, queuedAtNs);
+        });
+    }
+
+    @ReactMethod
+    public void dataChannelGetMetrics(int peerConnectionId, String reactTag, Promise promise) {
+        ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(peerConnectionId);
+            if (pco == null || pco.getPeerConnection() == null) {
+                Log.d(TAG, "dataChannelGetMetrics() peerConnection is null");
+                promise.reject(new Exception("PeerConnection not found"));
+                return;
+            }
+
+            WritableMap metrics = pco.dataChannelGetMetrics(reactTag);
+            if (metrics == null) {
+                promise.reject(new Exception("DataChannel not found"));
+                return;
+            }
+
+            promise.resolve(metrics);
+        });
+    }
+
+    @ReactMethod
+    public void dataChannelStartFileSink(
+            int peerConnectionId, String reactTag, String path, ReadableMap options, Promise promise) {
+        ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(peerConnectionId);
+            if (pco == null || pco.getPeerConnection() == null) {
+                Log.d(TAG, "dataChannelStartFileSink() peerConnection is null");
+                promise.reject(new Exception("PeerConnection not found"));
+                return;
+            }
+
+            pco.dataChannelStartFileSink(reactTag, path, options, promise);
+        });
+    }
+
+    @ReactMethod
+    public void dataChannelStopFileSink(int peerConnectionId, String reactTag) {
+        ThreadUtils.runOnExecutor(() -> {
+            PeerConnectionObserver pco = mPeerConnectionObservers.get(peerConnectionId);
+            if (pco == null || pco.getPeerConnection() == null) {
+                Log.d(TAG, "dataChannelStopFileSink() peerConnection is null");
+                return;
+            }
+
+            pco.dataChannelStopFileSink(reactTag);
         });
     }
 
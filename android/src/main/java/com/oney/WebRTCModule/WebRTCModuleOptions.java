@@ -2,6 +2,7 @@ package com.oney.WebRTCModule;
 
 import org.webrtc.Loggable;
 import org.webrtc.Logging;
+import org.webrtc.PeerConnection;
 import org.webrtc.VideoDecoderFactory;
 import org.webrtc.VideoEncoderFactory;
 import org.webrtc.audio.AudioDeviceModule;
@@ -16,6 +17,60 @@ public class WebRTCModuleOptions {
     public Logging.Severity loggingSeverity;
     public String fieldTrials;
     public boolean enableMediaProjectionService;
+    /**
+     * Whether the PeerConnectionFactory is built on first use rather than on
+     * a background thread as soon as the module is created. Either way the
+     * module constructor doesn't block on it.
+     */
+    public boolean lazyFactoryInitialization;
+    /**
+     * If greater than 0, DTLS certificates valid for this many seconds are
+     * generated in the background and shared by PeerConnections, instead of
+     * each PeerConnection generating its own.
+     */
+    public long certificateLifetime;
+    /**
+     * Key types of the certificates generated ahead of time, defaults to
+     * ECDSA only. The first PeerConnection configured with another key type
+     * generates its own certificate while one is prepared for the next ones.
+     */
+    public PeerConnection.KeyType[] certificateKeyTypes = { PeerConnection.KeyType.ECDSA };
+    /**
+     * Whether pre-generated DTLS certificates are stored in the application's
+     * no backup storage and reused across launches until they expire. Off by
+     * default: the certificate fingerprint is part of every SDP, so reusing
+     * one makes the sessions of a device linkable to each other, by the
+     * signaling server and the remote peers, for the whole certificate
+     * lifetime. Only enable it with a short {@link #certificateLifetime} if
+     * that is acceptable.
+     */
+    public boolean persistCertificates;
+    /**
+     * Source of the network changes which trigger ICE restarts, defaults to
+     * a {@link ConnectivityNetworkChangeSource}.
+     */
+    public NetworkChangeSource networkChangeSource;
+    /**
+     * Whether {@link WebRTCView}s draw through a few shared render threads
+     * and EGL contexts, see {@link SharedRenderThread}, instead of creating
+     * their own.
+     */
+    public boolean sharedVideoRenderer;
+    /**
+     * The maximum number of shared render threads, defaults to
+     * {@link SharedRenderThread#DEFAULT_THREAD_COUNT} if not set.
+     */
+    public int sharedRenderThreads;
+    /**
+     * How many initialized renderers of detached {@link WebRTCView}s are kept
+     * for reuse, see {@link ViewRendererPool}. 0 disables the pool.
+     */
+    public int rendererPoolSize;
+    /**
+     * After how many milliseconds an unused pooled renderer is released,
+     * defaults to {@link ViewRendererPool#DEFAULT_IDLE_TIMEOUT_MS} if not set.
+     */
+    public long rendererPoolIdleTimeout;
 
     public static WebRTCModuleOptions getInstance() {
         if (instance == null) {
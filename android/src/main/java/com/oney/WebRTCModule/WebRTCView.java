@@ -52,28 +52,28 @@ public class WebRTCView extends ViewGroup {
     private static final String TAG = WebRTCModule.TAG;
 
     /**
-     * The number of instances for {@link SurfaceViewRenderer}, used for logging.
-     * When the renderer is initialized, it creates a new {@link javax.microedition.khronos.egl.EGLContext}
-     * which can throw an exception, probably due to memory limitations. We log the number of instances that can
-     * be created before the exception is thrown.
+     * The number of initialized renderers in use by views, used for logging.
+     * When a {@link SurfaceViewRenderer} is initialized, it creates a new
+     * {@link javax.microedition.khronos.egl.EGLContext} which can throw an exception, probably due to memory
+     * limitations. We log the number of instances that can be created before the exception is thrown.
      */
-    private static int surfaceViewRendererInstances;
+    private static int rendererInstances;
 
     /**
      * The height of the last video frame rendered by
-     * {@link #surfaceViewRenderer}.
+     * {@link #renderer}.
      */
     private int frameHeight;
 
     /**
      * The rotation (degree) of the last video frame rendered by
-     * {@link #surfaceViewRenderer}.
+     * {@link #renderer}.
      */
     private int frameRotation;
 
     /**
      * The width of the last video frame rendered by
-     * {@link #surfaceViewRenderer}.
+     * {@link #renderer}.
      */
     private int frameWidth;
 
@@ -91,14 +91,14 @@ public class WebRTCView extends ViewGroup {
     private boolean mirror;
 
     /**
-     * Indicates if the {@link SurfaceViewRenderer} is attached to the video
+     * Indicates if the {@link #renderer} is attached to the video
      * track.
      */
     private boolean rendererAttached;
 
     /**
      * The {@code RendererEvents} which listens to rendering events reported by
-     * {@link #surfaceViewRenderer}.
+     * {@link #renderer}.
      */
     private final RendererEvents rendererEvents = new RendererEvents() {
         @Override
@@ -114,14 +114,14 @@ public class WebRTCView extends ViewGroup {
 
     /**
      * The {@code Runnable} representation of
-     * {@link #requestSurfaceViewRendererLayout()}. Explicitly defined in order
+     * {@link #requestRendererLayout()}. Explicitly defined in order
      * to allow the use of the latter with {@link #post(Runnable)} without
      * initializing new instances on every (method) call.
      */
-    private final Runnable requestSurfaceViewRendererLayoutRunnable = new Runnable() {
+    private final Runnable requestRendererLayoutRunnable = new Runnable() {
         @Override
         public void run() {
-            requestSurfaceViewRendererLayout();
+            requestRendererLayout();
         }
     };
 
@@ -142,7 +142,18 @@ public class WebRTCView extends ViewGroup {
      * The {@link View} and {@link VideoSink} implementation which
      * actually renders {@link #videoTrack} on behalf of this instance.
      */
-    private final SurfaceViewRenderer surfaceViewRenderer;
+    private ViewRenderer renderer;
+
+    /**
+     * The z-order of this {@code WebRTCView}, see {@link #setZOrder(int)}.
+     */
+    private int zOrder;
+
+    /**
+     * The maximum frame rate at which this {@code WebRTCView} renders, see
+     * {@link #setMaxFps(float)}.
+     */
+    private float maxFps = Float.POSITIVE_INFINITY;
 
     /**
      * The {@code VideoTrack}, if any, rendered by this {@code WebRTCView}.
@@ -157,20 +168,35 @@ public class WebRTCView extends ViewGroup {
     public WebRTCView(Context context) {
         super(context);
 
-        surfaceViewRenderer = new SurfaceViewRenderer(context);
-        addView(surfaceViewRenderer);
+        renderer = createRenderer(context);
+        addView(renderer.getView());
 
         setMirror(false);
         setScalingType(DEFAULT_SCALING_TYPE);
     }
 
     /**
-     * "Cleans" the {@code SurfaceViewRenderer} by setting the view part to
-     * opaque black and the surface part to transparent.
+     * "Cleans" the renderer by setting the view part to opaque black and the
+     * surface part to transparent.
      */
-    private void cleanSurfaceViewRenderer() {
-        surfaceViewRenderer.setBackgroundColor(Color.BLACK);
-        surfaceViewRenderer.clearImage();
+    private void cleanRenderer() {
+        renderer.getView().setBackgroundColor(Color.BLACK);
+        renderer.clearImage();
+    }
+
+    /**
+     * Creates the renderer of a new instance, drawing through the shared
+     * render threads if enabled in {@link WebRTCModuleOptions}.
+     */
+    private static ViewRenderer createRenderer(Context context) {
+        if (WebRTCModuleOptions.getInstance().sharedVideoRenderer) {
+            if (SharedVideoRenderer.isSupported()) {
+                return new SharedVideoRenderer(context);
+            }
+            Log.w(TAG, "Shared video rendering requires EGL14, falling back to SurfaceViewRenderer");
+        }
+
+        return new SurfaceViewVideoRenderer(context);
     }
 
     private VideoTrack getVideoTrackForStreamURL(String streamURL) {
@@ -205,6 +231,10 @@ public class WebRTCView extends ViewGroup {
             // infrastructure hooked up while this View is not attached to a
             // window. Additionally, a memory leak was solved in a similar way
             // on iOS.
+            if (renderer.getView().getParent() == null) {
+                // The renderer was replaced while detached.
+                addView(renderer.getView());
+            }
             tryAddRendererToVideoTrack();
         } finally {
             super.onAttachedToWindow();
@@ -218,15 +248,15 @@ public class WebRTCView extends ViewGroup {
             // to a window so there is no point in having the whole rendering
             // infrastructure hooked up while this View is not attached to a
             // window. Additionally, a memory leak was solved in a similar way
-            // on iOS.
-            removeRendererFromVideoTrack();
+            // on iOS. The renderer may be reused by another view though.
+            removeRendererFromVideoTrack(/* recycle */ true);
         } finally {
             super.onDetachedFromWindow();
         }
     }
 
     /**
-     * Callback fired by {@link #surfaceViewRenderer} when the first frame is
+     * Callback fired by {@link #renderer} when the first frame is
      * rendered. Here we will set the background of the view part of the
      * SurfaceView to transparent, so the surface (where video is actually
      * rendered) shines through.
@@ -234,12 +264,12 @@ public class WebRTCView extends ViewGroup {
     private void onFirstFrameRendered() {
         post(() -> {
             Log.d(TAG, "First frame rendered.");
-            surfaceViewRenderer.setBackgroundColor(Color.TRANSPARENT);
+            renderer.getView().setBackgroundColor(Color.TRANSPARENT);
         });
     }
 
     /**
-     * Callback fired by {@link #surfaceViewRenderer} when the resolution or
+     * Callback fired by {@link #renderer} when the resolution or
      * rotation of the frame it renders has changed.
      *
      * @param videoWidth The new width of the rendered video frame.
@@ -265,8 +295,8 @@ public class WebRTCView extends ViewGroup {
         }
         if (changed) {
             // The onFrameResolutionChanged method call executes on the
-            // surfaceViewRenderer's render Thread.
-            post(requestSurfaceViewRendererLayoutRunnable);
+            // renderer's render Thread.
+            post(requestRendererLayoutRunnable);
 
             // Call the onDimensionsChange callback if it's enabled
             if (onDimensionsChangeEnabled) {
@@ -310,7 +340,7 @@ public class WebRTCView extends ViewGroup {
 
             switch (scalingType) {
                 case SCALE_ASPECT_FILL:
-                    // Fill this ViewGroup with surfaceViewRenderer and the latter
+                    // Fill this ViewGroup with the renderer and the latter
                     // will take care of filling itself with the video similarly to
                     // the cover value the CSS property object-fit.
                     r = width;
@@ -320,9 +350,9 @@ public class WebRTCView extends ViewGroup {
                     break;
                 case SCALE_ASPECT_FIT:
                 default:
-                    // Lay surfaceViewRenderer out inside this ViewGroup in accord
+                    // Lay the renderer out inside this ViewGroup in accord
                     // with the contain value of the CSS property object-fit.
-                    // SurfaceViewRenderer will fill itself with the video similarly
+                    // The renderer will fill itself with the video similarly
                     // to the cover or contain value of the CSS property object-fit
                     // (which will not matter, eventually).
                     if (frameHeight == 0 || frameWidth == 0) {
@@ -341,19 +371,26 @@ public class WebRTCView extends ViewGroup {
                     break;
             }
         }
-        surfaceViewRenderer.layout(l, t, r, b);
+        renderer.getView().layout(l, t, r, b);
     }
 
     /**
      * Stops rendering {@link #videoTrack} and releases the associated acquired
      * resources (if rendering is in progress).
+     *
+     * @param recycle Whether the renderer may be kept initialized in the
+     * {@link ViewRendererPool} rather than released, in which case this
+     * instance gets a new one.
      */
-    private void removeRendererFromVideoTrack() {
+    private void removeRendererFromVideoTrack(boolean recycle) {
         if (rendererAttached) {
+            VideoTrack videoTrack = this.videoTrack;
+            ViewRenderer renderer = this.renderer;
+
             if (videoTrack != null) {
                 ThreadUtils.runOnExecutor(() -> {
                     try {
-                        videoTrack.removeSink(surfaceViewRenderer);
+                        videoTrack.removeSink(renderer);
                     } catch (Throwable tr) {
                         // XXX If WebRTCModule#mediaStreamTrackRelease has already been
                         // invoked on videoTrack, then it is no longer safe to call removeSink
@@ -362,31 +399,36 @@ public class WebRTCView extends ViewGroup {
                 });
             }
 
-            surfaceViewRenderer.release();
-            surfaceViewRendererInstances--;
+            if (recycle && ViewRendererPool.recycle(renderer)) {
+                renderer.setRendererEvents(null);
+                setRenderer(createRenderer(getContext()));
+            } else {
+                renderer.release();
+            }
+            rendererInstances--;
             rendererAttached = false;
 
             // Since this WebRTCView is no longer rendering anything, make sure
-            // surfaceViewRenderer displays nothing as well.
+            // the renderer displays nothing as well.
             synchronized (layoutSyncRoot) {
                 frameHeight = 0;
                 frameRotation = 0;
                 frameWidth = 0;
             }
-            requestSurfaceViewRendererLayout();
+            requestRendererLayout();
         }
     }
 
     /**
-     * Request that {@link #surfaceViewRenderer} be laid out (as soon as
-     * possible) because layout-related state either of this instance or of
-     * {@code surfaceViewRenderer} has changed.
+     * Request that {@link #renderer} be laid out (as soon as possible) because
+     * layout-related state either of this instance or of {@code renderer} has
+     * changed.
      */
     @SuppressLint("WrongCall")
-    private void requestSurfaceViewRendererLayout() {
-        // Google/WebRTC just call requestLayout() on surfaceViewRenderer when
+    private void requestRendererLayout() {
+        // Google/WebRTC just call requestLayout() on SurfaceViewRenderer when
         // they change the value of its mirror or surfaceType property.
-        surfaceViewRenderer.requestLayout();
+        renderer.getView().requestLayout();
         // The above is not enough though when the video frame's dimensions or
         // rotation change. The following will suffice.
         if (!ViewCompat.isInLayout(this)) {
@@ -406,10 +448,25 @@ public class WebRTCView extends ViewGroup {
     public void setMirror(boolean mirror) {
         if (this.mirror != mirror) {
             this.mirror = mirror;
-            surfaceViewRenderer.setMirror(mirror);
-            // SurfaceViewRenderer takes the value of its mirror property into
+            renderer.setMirror(mirror);
+            // The renderer takes the value of its mirror property into
             // account upon its layout.
-            requestSurfaceViewRendererLayout();
+            requestRendererLayout();
+        }
+    }
+
+    /**
+     * Sets the maximum frame rate at which this {@code WebRTCView} renders.
+     * Frames delivered faster by {@link #videoTrack} are dropped by the
+     * renderer before they are drawn, so they don't cost a texture upload.
+     *
+     * @param maxFps The maximum frame rate, 0 (or less) for no limit.
+     */
+    public void setMaxFps(float maxFps) {
+        float fps = maxFps > 0 ? maxFps : Float.POSITIVE_INFINITY;
+        if (this.maxFps != fps) {
+            this.maxFps = fps;
+            renderer.setFpsReduction(fps);
         }
     }
 
@@ -436,11 +493,11 @@ public class WebRTCView extends ViewGroup {
                 return;
             }
             this.scalingType = scalingType;
-            surfaceViewRenderer.setScalingType(scalingType);
+            renderer.setScalingType(scalingType);
         }
-        // Both this instance ant its SurfaceViewRenderer take the value of
-        // their scalingType properties into account upon their layouts.
-        requestSurfaceViewRendererLayout();
+        // Both this instance ant its renderer take the value of their
+        // scalingType properties into account upon their layouts.
+        requestRendererLayout();
     }
 
     /**
@@ -492,9 +549,9 @@ public class WebRTCView extends ViewGroup {
                 if (videoTrack == null) {
                     // If we are not going to render any stream, clean the
                     // surface.
-                    cleanSurfaceViewRenderer();
+                    cleanRenderer();
                 }
-                removeRendererFromVideoTrack();
+                removeRendererFromVideoTrack(/* recycle */ false);
             }
 
             this.videoTrack = videoTrack;
@@ -504,7 +561,7 @@ public class WebRTCView extends ViewGroup {
                 if (oldVideoTrack == null) {
                     // If there was no old track, clean the surface so we start
                     // with black.
-                    cleanSurfaceViewRenderer();
+                    cleanRenderer();
                 }
             }
         }
@@ -519,16 +576,27 @@ public class WebRTCView extends ViewGroup {
      * @param zOrder The z-order to set on this {@code WebRTCView}.
      */
     public void setZOrder(int zOrder) {
-        switch (zOrder) {
-            case 0:
-                surfaceViewRenderer.setZOrderMediaOverlay(false);
-                break;
-            case 1:
-                surfaceViewRenderer.setZOrderMediaOverlay(true);
-                break;
-            case 2:
-                surfaceViewRenderer.setZOrderOnTop(true);
-                break;
+        this.zOrder = zOrder;
+        renderer.setZOrder(zOrder);
+    }
+
+    /**
+     * Replaces {@link #renderer}, applying the state of this instance to the
+     * new one. The new renderer is not added as a child, which must only
+     * happen while this instance is attached to a window.
+     *
+     * @param renderer The new renderer.
+     */
+    private void setRenderer(ViewRenderer renderer) {
+        removeView(this.renderer.getView());
+        this.renderer = renderer;
+
+        // The z-order of a SurfaceView must be set before it is attached.
+        renderer.setMirror(mirror);
+        renderer.setZOrder(zOrder);
+        renderer.setFpsReduction(maxFps);
+        synchronized (layoutSyncRoot) {
+            renderer.setScalingType(scalingType);
         }
     }
 
@@ -541,24 +609,37 @@ public class WebRTCView extends ViewGroup {
             EglBase.Context sharedContext = EglUtils.getRootEglBaseContext();
 
             if (sharedContext == null) {
-                // If SurfaceViewRenderer#init() is invoked, it will throw a
+                // If the renderer's init() is invoked, it will throw a
                 // RuntimeException which will very likely kill the application.
                 Log.e(TAG, "Failed to render a VideoTrack!");
                 return;
             }
 
-            try {
-                surfaceViewRenderer.init(sharedContext, rendererEvents);
-                surfaceViewRendererInstances++;
-            } catch (Exception e) {
-                Logging.e(
-                        TAG, "Failed to initialize surfaceViewRenderer on instance " + surfaceViewRendererInstances, e);
-                return;
+            ViewRenderer pooledRenderer = ViewRendererPool.acquire(getContext());
+            if (pooledRenderer != null) {
+                // The pooled renderer is initialized already. It has rendered
+                // frames before, so there is no first frame to wait for with a
+                // black background either.
+                setRenderer(pooledRenderer);
+                addView(pooledRenderer.getView());
+                pooledRenderer.getView().setBackgroundColor(Color.TRANSPARENT);
+                pooledRenderer.setRendererEvents(rendererEvents);
+                rendererInstances++;
+            } else {
+                try {
+                    renderer.init(sharedContext, rendererEvents);
+                    rendererInstances++;
+                } catch (Exception e) {
+                    Logging.e(TAG, "Failed to initialize renderer on instance " + rendererInstances, e);
+                    return;
+                }
             }
 
+            VideoTrack videoTrack = this.videoTrack;
+            ViewRenderer renderer = this.renderer;
             ThreadUtils.runOnExecutor(() -> {
                 try {
-                    videoTrack.addSink(surfaceViewRenderer);
+                    videoTrack.addSink(renderer);
                 } catch (Throwable tr) {
                     // XXX If WebRTCModule#mediaStreamTrackRelease has already been
                     // invoked on videoTrack, then it is no longer safe to call addSink
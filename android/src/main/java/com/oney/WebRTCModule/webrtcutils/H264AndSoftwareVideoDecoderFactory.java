@@ -23,9 +23,21 @@ public class H264AndSoftwareVideoDecoderFactory implements VideoDecoderFactory {
     private final VideoDecoderFactory hardwareVideoDecoderFactory;
     private final VideoDecoderFactory softwareVideoDecoderFactory;
 
+    private final HardwareCodecCache hardwareCodecCache;
+
     public H264AndSoftwareVideoDecoderFactory(@Nullable EglBase.Context eglContext) {
+        this(eglContext, null);
+    }
+
+    /**
+     * @param hardwareCodecCache if not null, the codecs supported in hardware
+     * are looked up there rather than queried every time.
+     */
+    public H264AndSoftwareVideoDecoderFactory(
+            @Nullable EglBase.Context eglContext, @Nullable HardwareCodecCache hardwareCodecCache) {
         this.hardwareVideoDecoderFactory = new HardwareVideoDecoderFactory(eglContext);
         this.softwareVideoDecoderFactory = new SoftwareVideoDecoderFactoryProxy();
+        this.hardwareCodecCache = hardwareCodecCache;
     }
 
     @Nullable
@@ -45,7 +57,10 @@ public class H264AndSoftwareVideoDecoderFactory implements VideoDecoderFactory {
         VideoCodecInfo h264Baseline = null;
         VideoCodecInfo h264High = null;
 
-        VideoCodecInfo[] hwCodecs = this.hardwareVideoDecoderFactory.getSupportedCodecs();
+        VideoCodecInfo[] hwCodecs = this.hardwareCodecCache != null
+                ? this.hardwareCodecCache.getSupportedCodecs(
+                        "decoder", this.hardwareVideoDecoderFactory::getSupportedCodecs)
+                : this.hardwareVideoDecoderFactory.getSupportedCodecs();
         for (VideoCodecInfo hwCodec : hwCodecs) {
             if (hwCodec.name.equalsIgnoreCase("H264")) {
                 String profileLevel = hwCodec.params.get(VideoCodecInfo.H264_FMTP_PROFILE_LEVEL_ID);
@@ -23,9 +23,21 @@ public class H264AndSoftwareVideoEncoderFactory implements VideoEncoderFactory {
     private final VideoEncoderFactory hardwareVideoEncoderFactory;
     private final VideoEncoderFactory softwareVideoEncoderFactory;
 
+    private final HardwareCodecCache hardwareCodecCache;
+
     public H264AndSoftwareVideoEncoderFactory(@Nullable EglBase.Context eglContext) {
+        this(eglContext, null);
+    }
+
+    /**
+     * @param hardwareCodecCache if not null, the codecs supported in hardware
+     * are looked up there rather than queried every time.
+     */
+    public H264AndSoftwareVideoEncoderFactory(
+            @Nullable EglBase.Context eglContext, @Nullable HardwareCodecCache hardwareCodecCache) {
         this.hardwareVideoEncoderFactory = new HardwareVideoEncoderFactory(eglContext, false, true);
         this.softwareVideoEncoderFactory = new SoftwareVideoEncoderFactoryProxy();
+        this.hardwareCodecCache = hardwareCodecCache;
     }
 
     @Nullable
@@ -45,7 +57,10 @@ public class H264AndSoftwareVideoEncoderFactory implements VideoEncoderFactory {
         VideoCodecInfo h264Baseline = null;
         VideoCodecInfo h264High = null;
 
-        VideoCodecInfo[] hwCodecs = this.hardwareVideoEncoderFactory.getSupportedCodecs();
+        VideoCodecInfo[] hwCodecs = this.hardwareCodecCache != null
+                ? this.hardwareCodecCache.getSupportedCodecs(
+                        "encoder", this.hardwareVideoEncoderFactory::getSupportedCodecs)
+                : this.hardwareVideoEncoderFactory.getSupportedCodecs();
         for (VideoCodecInfo hwCodec : hwCodecs) {
             if (hwCodec.name.equalsIgnoreCase("H264")) {
                 String profileLevel = hwCodec.params.get(VideoCodecInfo.H264_FMTP_PROFILE_LEVEL_ID);
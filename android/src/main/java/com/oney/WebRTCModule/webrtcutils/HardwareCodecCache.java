@@ -0,0 +1,148 @@
+package com.oney.WebRTCModule.webrtcutils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.VideoCodecInfo;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches the codecs supported by the hardware video encoder / decoder
+ * factories. Querying them walks MediaCodecList, which can take hundreds of
+ * milliseconds on low end devices, and WebRTC does so repeatedly.
+ *
+ * Results are kept in memory and persisted, keyed by the build fingerprint so
+ * an OS update invalidates them. A persisted result is served right away and
+ * re-validated once per process on a background thread, the fresh result
+ * replaces it if they differ.
+ */
+public class HardwareCodecCache {
+    private static final String TAG = HardwareCodecCache.class.getCanonicalName();
+
+    private static final String PREFERENCES_NAME = "WebRTCModule.HardwareCodecCache";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+
+    private final SharedPreferences preferences;
+    private final Map<String, VideoCodecInfo[]> codecs = new HashMap<>();
+
+    public HardwareCodecCache(Context context) {
+        preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+
+        if (!getFingerprint().equals(preferences.getString(FINGERPRINT_KEY, null))) {
+            preferences.edit().clear().putString(FINGERPRINT_KEY, getFingerprint()).apply();
+        }
+    }
+
+    /**
+     * Returns the supported codecs stored under the given key, running the
+     * query (on the calling thread) only if there are none.
+     */
+    public VideoCodecInfo[] getSupportedCodecs(String key, Supplier<VideoCodecInfo[]> query) {
+        synchronized (codecs) {
+            VideoCodecInfo[] cached = codecs.get(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            cached = load(key);
+            if (cached != null) {
+                codecs.put(key, cached);
+                revalidate(key, cached, query);
+                return cached;
+            }
+
+            VideoCodecInfo[] result = query.get();
+            codecs.put(key, result);
+            store(key, result);
+            return result;
+        }
+    }
+
+    private void revalidate(String key, VideoCodecInfo[] cached, Supplier<VideoCodecInfo[]> query) {
+        Thread thread = new Thread(() -> {
+            VideoCodecInfo[] result = query.get();
+            String serialized = serialize(result);
+
+            if (serialized != null && !serialized.equals(serialize(cached))) {
+                Log.d(TAG, "Supported codecs changed for " + key);
+                synchronized (codecs) {
+                    codecs.put(key, result);
+                }
+                store(key, result);
+            }
+        }, "HardwareCodecCache-revalidate");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @Nullable
+    private VideoCodecInfo[] load(String key) {
+        String serialized = preferences.getString(key, null);
+        if (serialized == null) {
+            return null;
+        }
+
+        try {
+            JSONArray array = new JSONArray(serialized);
+            VideoCodecInfo[] result = new VideoCodecInfo[array.length()];
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject codec = array.getJSONObject(i);
+                JSONObject params = codec.getJSONObject("params");
+                Map<String, String> paramsMap = new HashMap<>();
+                Iterator<String> it = params.keys();
+                while (it.hasNext()) {
+                    String name = it.next();
+                    paramsMap.put(name, params.getString(name));
+                }
+                result[i] = new VideoCodecInfo(codec.getString("name"), paramsMap);
+            }
+            return result;
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding malformed cached codecs for " + key, e);
+            return null;
+        }
+    }
+
+    private void store(String key, VideoCodecInfo[] codecs) {
+        String serialized = serialize(codecs);
+        if (serialized != null) {
+            preferences.edit().putString(key, serialized).apply();
+        }
+    }
+
+    @Nullable
+    private static String serialize(VideoCodecInfo[] codecs) {
+        try {
+            JSONArray array = new JSONArray();
+            for (VideoCodecInfo codec : codecs) {
+                JSONObject params = new JSONObject();
+                for (Map.Entry<String, String> entry : codec.params.entrySet()) {
+                    params.put(entry.getKey(), entry.getValue());
+                }
+                JSONObject object = new JSONObject();
+                object.put("name", codec.name);
+                object.put("params", params);
+                array.put(object);
+            }
+            return array.toString();
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to serialize codecs", e);
+            return null;
+        }
+    }
+
+    private static String getFingerprint() {
+        return Build.FINGERPRINT + "|" + Build.VERSION.SDK_INT;
+    }
+}
@@ -0,0 +1,138 @@
+package com.oney.WebRTCModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ICE restarts and events of {@link NetworkChangeMonitor} for a sequence of
+ * reported networks.
+ */
+public class NetworkChangeMonitorTest {
+    private static class FakeNetworkChangeSource implements NetworkChangeSource {
+        @Nullable NetworkChangeSource.Listener listener;
+
+        @Override
+        public void start(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void stop() {
+            listener = null;
+        }
+
+        void report(@Nullable String networkId, @Nullable String networkType) {
+            listener.onNetworkChanged(networkId, networkType);
+        }
+    }
+
+    private static class FakePeerConnections implements NetworkChangeMonitor.PeerConnections {
+        boolean optedIn = true;
+        int restarts;
+
+        @Override
+        public boolean isAnyOptedIn() {
+            return optedIn;
+        }
+
+        @Override
+        public List<Integer> restartIce() {
+            restarts++;
+            return Arrays.asList(1, 2);
+        }
+    }
+
+    private static class Event {
+        final String previousNetworkType;
+        final String networkType;
+        final List<Integer> restartedPcIds;
+
+        Event(String previousNetworkType, String networkType, List<Integer> restartedPcIds) {
+            this.previousNetworkType = previousNetworkType;
+            this.networkType = networkType;
+            this.restartedPcIds = restartedPcIds;
+        }
+    }
+
+    private final FakeNetworkChangeSource source = new FakeNetworkChangeSource();
+    private final FakePeerConnections peerConnections = new FakePeerConnections();
+    private final List<Event> events = new ArrayList<>();
+    private NetworkChangeMonitor monitor;
+
+    @Before
+    public void setUp() {
+        monitor = new NetworkChangeMonitor(source,
+                peerConnections,
+                (previousNetworkType, networkType, restartedPcIds)
+                        -> events.add(new Event(previousNetworkType, networkType, restartedPcIds)),
+                Runnable::run);
+        monitor.update();
+    }
+
+    @Test
+    public void firstReportOnlySetsTheNetwork() {
+        source.report("100", "wifi");
+
+        assertEquals(0, peerConnections.restarts);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void sameNetworkDoesNotRestart() {
+        source.report("100", "wifi");
+        source.report("100", "wifi");
+
+        assertEquals(0, peerConnections.restarts);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void handoverRestartsIce() {
+        source.report("100", "wifi");
+        source.report("101", "wifi");
+
+        assertEquals(1, peerConnections.restarts);
+        assertEquals(1, events.size());
+        assertEquals("wifi", events.get(0).previousNetworkType);
+        assertEquals("wifi", events.get(0).networkType);
+        assertEquals(Arrays.asList(1, 2), events.get(0).restartedPcIds);
+    }
+
+    @Test
+    public void noNetworkReportsWithoutRestarting() {
+        source.report("100", "wifi");
+        source.report(null, null);
+
+        assertEquals(0, peerConnections.restarts);
+        assertEquals(1, events.size());
+        assertEquals("wifi", events.get(0).previousNetworkType);
+        assertNull(events.get(0).networkType);
+        assertEquals(Collections.emptyList(), events.get(0).restartedPcIds);
+
+        source.report("200", "cellular");
+
+        assertEquals(1, peerConnections.restarts);
+        assertEquals(2, events.size());
+        assertNull(events.get(1).previousNetworkType);
+        assertEquals("cellular", events.get(1).networkType);
+    }
+
+    @Test
+    public void stopsOnceNoPeerConnectionOptedIn() {
+        peerConnections.optedIn = false;
+        monitor.update();
+
+        assertNull(source.listener);
+    }
+}
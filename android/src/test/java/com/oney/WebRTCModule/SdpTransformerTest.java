@@ -0,0 +1,174 @@
+package com.oney.WebRTCModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+/**
+ * Round trips of the SDP transform rules behind {@code RTCSdp.transform()},
+ * and the structure behind {@code RTCSdp.parse()}.
+ */
+public class SdpTransformerTest {
+    private static final String SDP = "v=0\r\n"
+            + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 0\r\n"
+            + "a=mid:0\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "a=fmtp:111 minptime=10;useinbandfec=1\r\n"
+            + "a=rtpmap:63 red/48000/2\r\n"
+            + "a=fmtp:63 111/111\r\n"
+            + "a=rtpmap:0 PCMU/8000\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 102\r\n"
+            + "a=mid:1\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:98 VP9/90000\r\n"
+            + "a=fmtp:98 profile-id=0\r\n"
+            + "a=rtpmap:99 rtx/90000\r\n"
+            + "a=fmtp:99 apt=98\r\n"
+            + "a=rtpmap:100 red/90000\r\n"
+            + "a=rtpmap:101 rtx/90000\r\n"
+            + "a=fmtp:101 apt=100\r\n"
+            + "a=rtpmap:102 ulpfec/90000\r\n";
+
+    private static String transform(JavaOnlyMap rules) {
+        return new SdpTransformer(rules).transform(SDP);
+    }
+
+    @Test
+    public void noRulesKeepsTheSdp() {
+        assertEquals(SDP, transform(new JavaOnlyMap()));
+    }
+
+    @Test
+    public void codecOrderMovesRtxAlong() {
+        String sdp = transform(JavaOnlyMap.of("codecOrder", JavaOnlyMap.of("video", JavaOnlyArray.of("VP9"))));
+
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 98 99 96 97 100 101 102\r\n"));
+        assertTrue(sdp.contains("a=fmtp:99 apt=98\r\n"));
+    }
+
+    @Test
+    public void codecOrderMovesRedAlong() {
+        String sdp = transform(JavaOnlyMap.of("codecOrder", JavaOnlyMap.of("audio", JavaOnlyArray.of("PCMU", "opus"))));
+
+        assertTrue(sdp.contains("m=audio 9 UDP/TLS/RTP/SAVPF 0 111 63\r\n"));
+    }
+
+    @Test
+    public void removeCodecsRemovesDependentPayloads() {
+        String sdp = transform(JavaOnlyMap.of("removeCodecs", JavaOnlyMap.of(
+                "audio", JavaOnlyArray.of("opus"),
+                "video", JavaOnlyArray.of("VP8"))));
+
+        assertTrue(sdp.contains("m=audio 9 UDP/TLS/RTP/SAVPF 0\r\n"));
+        assertFalse(sdp.contains("a=fmtp:63 "));
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 98 99 100 101 102\r\n"));
+        assertFalse(sdp.contains("a=fmtp:97 "));
+    }
+
+    @Test
+    public void fmtpUpdatesAddsAndRemovesParameters() {
+        String sdp = transform(JavaOnlyMap.of("fmtp", JavaOnlyArray.of(
+                JavaOnlyMap.of("kind", "audio", "codec", "opus",
+                        "parameters", JavaOnlyMap.of("stereo", 1, "useinbandfec", null)),
+                JavaOnlyMap.of("codec", "VP8", "parameters", JavaOnlyMap.of("x-google-start-bitrate", 1000)),
+                JavaOnlyMap.of("codec", "vp9", "parameters", JavaOnlyMap.of("profile-id", null)))));
+
+        assertTrue(sdp.contains("a=fmtp:111 minptime=10;stereo=1\r\n"));
+        assertTrue(sdp.contains("a=rtpmap:96 VP8/90000\r\na=fmtp:96 x-google-start-bitrate=1000\r\n"));
+        assertFalse(sdp.contains("a=fmtp:98 "));
+        assertTrue(sdp.contains("a=fmtp:99 apt=98\r\n"));
+    }
+
+    @Test
+    public void bandwidthSetsAndRemovesLimits() {
+        String sdp = transform(JavaOnlyMap.of("bandwidth", JavaOnlyMap.of("video", 500)));
+
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 102\r\n"
+                + "b=AS:500\r\n"
+                + "b=TIAS:500000\r\n"
+                + "a=mid:1\r\n"));
+        assertFalse(sdp.contains("m=audio 9 UDP/TLS/RTP/SAVPF 111 63 0\r\nb="));
+
+        String removed = new SdpTransformer(JavaOnlyMap.of("bandwidth", JavaOnlyMap.of("video", 0))).transform(sdp);
+
+        assertEquals(SDP, removed);
+    }
+
+    @Test
+    public void removeAttributesTargetsMidAndKind() {
+        String sdp = transform(JavaOnlyMap.of("removeAttributes", JavaOnlyArray.of(
+                JavaOnlyMap.of("mid", "1", "name", "mid"),
+                JavaOnlyMap.of("kind", "audio", "name", "fmtp"))));
+
+        assertTrue(sdp.contains("a=mid:0\r\n"));
+        assertFalse(sdp.contains("a=mid:1\r\n"));
+        assertFalse(sdp.contains("a=fmtp:111 "));
+        assertFalse(sdp.contains("a=fmtp:63 "));
+        assertTrue(sdp.contains("a=fmtp:97 apt=96\r\n"));
+    }
+
+    @Test
+    public void addAttributesTargetsMidAndKind() {
+        String sdp = transform(JavaOnlyMap.of("addAttributes", JavaOnlyArray.of(
+                JavaOnlyMap.of("mid", "0", "lines", JavaOnlyArray.of("a=ptime:20")),
+                JavaOnlyMap.of("kind", "video", "lines", JavaOnlyArray.of("a=x-google-flag:conference")))));
+
+        assertTrue(sdp.contains("a=rtpmap:0 PCMU/8000\r\na=ptime:20\r\nm=video "));
+        assertEquals(sdp.indexOf("a=ptime:20"), sdp.lastIndexOf("a=ptime:20"));
+        assertTrue(sdp.endsWith("a=rtpmap:102 ulpfec/90000\r\na=x-google-flag:conference\r\n"));
+    }
+
+    @Test
+    public void parseSerializesSessionAndMedia() {
+        ReadableMap parsed;
+        // Arguments creates native maps, which aren't available on the JVM.
+        try (MockedStatic<Arguments> arguments = Mockito.mockStatic(Arguments.class)) {
+            arguments.when(Arguments::createMap).thenAnswer(invocation -> new JavaOnlyMap());
+            arguments.when(Arguments::createArray).thenAnswer(invocation -> new JavaOnlyArray());
+            parsed = SdpTransformer.parse(SDP);
+        }
+
+        assertEquals("0", parsed.getMap("session").getString("version"));
+        assertEquals("-", parsed.getMap("session").getString("name"));
+
+        ReadableArray media = parsed.getArray("media");
+        assertEquals(2, media.size());
+
+        ReadableMap audio = media.getMap(0);
+        assertEquals("audio", audio.getString("kind"));
+        assertEquals("0", audio.getString("mid"));
+        assertEquals(3, audio.getArray("payloads").size());
+
+        ReadableMap opus = audio.getArray("codecs").getMap(0);
+        assertEquals("111", opus.getString("payloadType"));
+        assertEquals("opus", opus.getString("name"));
+        assertEquals("48000", opus.getString("clockRate"));
+        assertEquals("2", opus.getString("channels"));
+        assertEquals("1", opus.getMap("parameters").getString("useinbandfec"));
+
+        ReadableMap pcmu = audio.getArray("codecs").getMap(2);
+        assertEquals("PCMU", pcmu.getString("name"));
+        assertFalse(pcmu.hasKey("channels"));
+        assertFalse(pcmu.hasKey("parameters"));
+
+        ReadableMap video = media.getMap(1);
+        assertEquals("1", video.getString("mid"));
+        assertEquals("96", video.getArray("payloads").getString(0));
+        assertFalse(video.hasKey("direction"));
+    }
+}
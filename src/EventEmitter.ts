@@ -18,11 +18,16 @@ const NATIVE_EVENTS = [
     'peerConnectionDidOpenDataChannel',
     'peerConnectionOnRemoveTrack',
     'peerConnectionOnTrack',
+    'peerConnectionNetworkChanged',
+    'peerConnectionTimeline',
     'dataChannelStateChanged',
     'dataChannelReceiveMessage',
     'dataChannelDidChangeBufferedAmount',
+    'dataChannelFileSinkProgress',
     'mediaStreamTrackMuteChanged',
     'mediaStreamTrackEnded',
+    'mediaFlowStalled',
+    'mediaFlowResumed',
     'mediaDevicesOnDeviceChange',
 ];
 
@@ -0,0 +1,28 @@
+import { Event } from 'event-target-shim';
+
+import type { RTCConnectionTimeline } from './RTCPeerConnection';
+
+type CONNECTION_TIMELINE_EVENTS = 'connectiontimeline';
+
+interface IRTCConnectionTimelineEventInitDict extends Event.EventInit {
+    timeline: RTCConnectionTimeline
+}
+
+/**
+ * @eventClass
+ * Non-standard, Android only. This event is fired once the PeerConnection is
+ * first connected, with the milestones of its setup.
+ * @param {CONNECTION_TIMELINE_EVENTS} type - The type of event.
+ * @param {IRTCConnectionTimelineEventInitDict} eventInitDict - The event init properties.
+ */
+export default class RTCConnectionTimelineEvent<
+    TEventType extends CONNECTION_TIMELINE_EVENTS
+> extends Event<TEventType> {
+    /** @eventProperty */
+    readonly timeline: RTCConnectionTimeline;
+
+    constructor(type: TEventType, eventInitDict: IRTCConnectionTimelineEventInitDict) {
+        super(type, eventInitDict);
+        this.timeline = eventInitDict.timeline;
+    }
+}
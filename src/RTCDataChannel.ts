@@ -10,6 +10,59 @@ const { WebRTCModule } = NativeModules;
 
 type RTCDataChannelState = 'connecting' | 'open' | 'closing' | 'closed';
 
+export type RTCDataChannelFileSinkProgress = {
+    bytesWritten: number;
+    expectedSize?: number;
+};
+
+export type RTCDataChannelFileSinkOptions = {
+    /**
+     * Number of bytes after which the transfer completes. When not given,
+     * the transfer completes when {@link RTCDataChannel#stopReceivingToFile}
+     * is called or the channel closes.
+     */
+    expectedSize?: number;
+
+    /**
+     * Minimum number of bytes written between progress callbacks.
+     */
+    progressInterval?: number;
+
+    onProgress?: (progress: RTCDataChannelFileSinkProgress) => void;
+};
+
+export type RTCDataChannelFileSinkResult = {
+    path: string;
+    bytesWritten: number;
+};
+
+/**
+ * Byte counts refer to the application payload, received ones include the
+ * messages written to a file sink. Times are in seconds.
+ */
+export type RTCDataChannelMetrics = {
+    timestamp: number;
+    messagesSent: number;
+    bytesSent: number;
+    messagesReceived: number;
+    bytesReceived: number;
+
+    /**
+     * Time messages spent waiting for the native executor before being handed
+     * to the channel. The time spent in the SCTP send buffer afterwards is not
+     * included, see maxBufferedAmount.
+     */
+    totalExecutorQueueTime: number;
+    maxExecutorQueueTime: number;
+
+    /**
+     * Time spent converting messages to / from their JS representation.
+     */
+    totalEncodeTime: number;
+    totalDecodeTime: number;
+    maxBufferedAmount: number;
+};
+
 type DataChannelEventMap = {
     bufferedamountlow: RTCDataChannelEvent<'bufferedamountlow'>;
     close: RTCDataChannelEvent<'close'>;
@@ -36,6 +89,8 @@ export default class RTCDataChannel extends EventTarget<DataChannelEventMap> {
     binaryType = 'arraybuffer'; // we only support 'arraybuffer'
     bufferedAmountLowThreshold = 0;
 
+    _fileSinkProgressHandler?: (progress: RTCDataChannelFileSinkProgress) => void;
+
     constructor(info) {
         super();
 
@@ -115,6 +170,48 @@ export default class RTCDataChannel extends EventTarget<DataChannelEventMap> {
         WebRTCModule.dataChannelSend(this._peerConnectionId, this._reactTag, base64data, 'binary');
     }
 
+    /**
+     * Writes the binary messages received on this channel straight to the file
+     * at the given path, natively. They are not dispatched as 'message' events
+     * while the transfer is in progress; text messages still are.
+     *
+     * Android only.
+     *
+     * @param path - absolute path of the destination file, it gets truncated
+     * @param options - the transfer options
+     * @returns a promise which resolves once the transfer has completed
+     */
+    receiveToFile(path: string, options: RTCDataChannelFileSinkOptions = {}): Promise<RTCDataChannelFileSinkResult> {
+        const { onProgress, ...nativeOptions } = options;
+
+        this._fileSinkProgressHandler = onProgress;
+
+        return WebRTCModule.dataChannelStartFileSink(this._peerConnectionId, this._reactTag, path, nativeOptions)
+            .finally(() => {
+                if (this._fileSinkProgressHandler === onProgress) {
+                    this._fileSinkProgressHandler = undefined;
+                }
+            });
+    }
+
+    /**
+     * Completes an ongoing {@link RTCDataChannel#receiveToFile} transfer.
+     *
+     * Android only.
+     */
+    stopReceivingToFile(): void {
+        WebRTCModule.dataChannelStopFileSink(this._peerConnectionId, this._reactTag);
+    }
+
+    /**
+     * Gets a snapshot of the throughput and latency counters of this channel.
+     *
+     * Android only.
+     */
+    getMetrics(): Promise<RTCDataChannelMetrics> {
+        return WebRTCModule.dataChannelGetMetrics(this._peerConnectionId, this._reactTag);
+    }
+
     close(): void {
         if (this._readyState === 'closing' || this._readyState === 'closed') {
             return;
@@ -163,6 +260,17 @@ export default class RTCDataChannel extends EventTarget<DataChannelEventMap> {
             this.dispatchEvent(new MessageEvent('message', { data }));
         });
 
+        addListener(this, 'dataChannelFileSinkProgress', (ev: any) => {
+            if (ev.reactTag !== this._reactTag) {
+                return;
+            }
+
+            this._fileSinkProgressHandler?.({
+                bytesWritten: ev.bytesWritten,
+                expectedSize: ev.expectedSize
+            });
+        });
+
         addListener(this, 'dataChannelDidChangeBufferedAmount', (ev: any) => {
             if (ev.reactTag !== this._reactTag) {
                 return;
@@ -0,0 +1,53 @@
+import { Event } from 'event-target-shim';
+
+type MEDIA_FLOW_EVENTS = 'mediaflowstalled' | 'mediaflowresumed';
+
+interface IRTCMediaFlowEventInitDict extends Event.EventInit {
+    ssrc: string
+    kind: 'audio' | 'video'
+    direction: 'inbound' | 'outbound'
+    trackId?: string | null
+    mid?: string | null
+    duration: number
+}
+
+/**
+ * @eventClass
+ * Non-standard, Android only. This event is fired when an RTP stream of the
+ * PeerConnection stops receiving or sending media, and once it makes progress
+ * again.
+ * @param {MEDIA_FLOW_EVENTS} type - The type of event.
+ * @param {IRTCMediaFlowEventInitDict} eventInitDict - The event init properties.
+ */
+export default class RTCMediaFlowEvent<TEventType extends MEDIA_FLOW_EVENTS> extends Event<TEventType> {
+    /** @eventProperty */
+    readonly ssrc: string;
+
+    /** @eventProperty */
+    readonly kind: 'audio' | 'video';
+
+    /** @eventProperty */
+    readonly direction: 'inbound' | 'outbound';
+
+    /** @eventProperty */
+    readonly trackId: string | null;
+
+    /** @eventProperty */
+    readonly mid: string | null;
+
+    /**
+     * How long the stream went without progress, in milliseconds.
+     * @eventProperty
+     */
+    readonly duration: number;
+
+    constructor(type: TEventType, eventInitDict: IRTCMediaFlowEventInitDict) {
+        super(type, eventInitDict);
+        this.ssrc = eventInitDict.ssrc;
+        this.kind = eventInitDict.kind;
+        this.direction = eventInitDict.direction;
+        this.trackId = eventInitDict.trackId ?? null;
+        this.mid = eventInitDict.mid ?? null;
+        this.duration = eventInitDict.duration;
+    }
+}
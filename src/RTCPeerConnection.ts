@@ -6,15 +6,18 @@ import Logger from './Logger';
 import MediaStream from './MediaStream';
 import MediaStreamTrack from './MediaStreamTrack';
 import MediaStreamTrackEvent from './MediaStreamTrackEvent';
+import RTCConnectionTimelineEvent from './RTCConnectionTimelineEvent';
 import RTCDataChannel from './RTCDataChannel';
 import RTCDataChannelEvent from './RTCDataChannelEvent';
 import RTCIceCandidate from './RTCIceCandidate';
 import RTCIceCandidateEvent from './RTCIceCandidateEvent';
+import RTCMediaFlowEvent from './RTCMediaFlowEvent';
 import RTCRtpReceiveParameters from './RTCRtpReceiveParameters';
 import RTCRtpReceiver from './RTCRtpReceiver';
 import RTCRtpSendParameters from './RTCRtpSendParameters';
 import RTCRtpSender from './RTCRtpSender';
 import RTCRtpTransceiver from './RTCRtpTransceiver';
+import { RTCSdpTransformRules } from './RTCSdp';
 import RTCSessionDescription, { RTCSessionDescriptionInit } from './RTCSessionDescription';
 import RTCTrackEvent from './RTCTrackEvent';
 import * as RTCUtil from './RTCUtil';
@@ -41,6 +44,17 @@ type RTCDataChannelInit = {
     ordered?: boolean,
     maxPacketLifeTime?: number,
     maxRetransmits?: number,
+
+    /**
+     * Besides the application protocol, it may contain these whitespace / comma
+     * separated extension tokens, which both ends need to agree on (Android only,
+     * creating the channel fails unless it is `negotiated: true`):
+     *
+     * - `x-rn-chunked`: large messages are transparently split into 16 KiB
+     *   chunks and reassembled natively.
+     * - `x-rn-deflate`: text messages of 256 bytes or more are compressed with
+     *   DEFLATE natively, whenever that makes them smaller.
+     */
     protocol?: string,
     negotiated?: boolean,
     id?: number
@@ -53,12 +67,96 @@ type RTCIceServer = {
     username?: string
 };
 
+type OneOrMany<T> = T | T[];
+
+type RTCIceCandidateFilterRule = {
+    type?: OneOrMany<'host' | 'srflx' | 'prflx' | 'relay'>,
+    protocol?: OneOrMany<'udp' | 'tcp'>,
+    networkType?: OneOrMany<'ethernet' | 'wifi' | 'cellular' | 'vpn' | 'loopback' | 'unknown'>,
+    addressFamily?: OneOrMany<'ipv4' | 'ipv6' | 'hostname'>,
+    relayProtocol?: OneOrMany<'udp' | 'tcp' | 'tls'>
+};
+
+type RTCMediaFlowWatchdogOptions = {
+    stallThreshold?: number,
+    interval?: number,
+    kinds?: ('audio' | 'video')[],
+    directions?: ('inbound' | 'outbound')[]
+};
+
 type RTCConfiguration = {
     bundlePolicy?: 'balanced' | 'max-compat' | 'max-bundle',
     iceCandidatePoolSize?: number,
     iceServers?: RTCIceServer[],
     iceTransportPolicy?: 'all' | 'relay',
-    rtcpMuxPolicy?: 'negotiate' | 'require'
+    rtcpMuxPolicy?: 'negotiate' | 'require',
+
+    /**
+     * Non-standard, Android only. Window in milliseconds during which bursts of
+     * 'negotiationneeded' events are collapsed into a single one, which fires
+     * right away when the signaling state gets back to 'stable'. Disabled (0)
+     * by default.
+     */
+    negotiationNeededDebounce?: number,
+
+    /**
+     * Non-standard, Android only. Makes the native side send only the IDs and
+     * the state which may have changed along with track events, rather than
+     * serializing the streams, receiver and transceiver in full. Cheaper when
+     * many tracks get added at once.
+     */
+    compactTrackEvents?: boolean,
+
+    /**
+     * Non-standard, Android only. Local ICE candidates matching any of these
+     * rules are dropped natively and never emitted, nor included in the local
+     * description sent along with candidates. A rule matches if all of its
+     * members do, each being a value or a list of values.
+     */
+    iceCandidateFilter?: RTCIceCandidateFilterRule[],
+
+    /**
+     * Non-standard, Android only. Restart ICE natively as soon as the default
+     * network of the device changes (e.g. from Wi-Fi to cellular), firing
+     * 'networkchange' followed by 'negotiationneeded'.
+     */
+    restartIceOnNetworkChange?: boolean,
+
+    /**
+     * Non-standard, Android only. Watch the packets and bytes of every RTP
+     * stream natively and fire 'mediaflowstalled' when one which had media
+     * makes no progress for stallThreshold milliseconds (1000 by default),
+     * then 'mediaflowresumed' once it does. Stats are polled every interval
+     * milliseconds (500 by default).
+     */
+    mediaFlowWatchdog?: boolean | RTCMediaFlowWatchdogOptions,
+
+    /**
+     * Non-standard, Android only. Named set of the members below (and others)
+     * applied first, members set explicitly override it. Built-in presets are
+     * 'fast-connect', 'battery-saver' and 'cellular', applications can
+     * register their own natively.
+     */
+    preset?: 'fast-connect' | 'battery-saver' | 'cellular' | string,
+
+    // Non-standard, Android only. libwebrtc tuning knobs, times are in milliseconds.
+    iceCheckIntervalStrongConnectivityMs?: number,
+    iceCheckIntervalWeakConnectivityMs?: number,
+    iceCheckMinInterval?: number,
+    iceUnwritableTimeMs?: number,
+    iceUnwritableMinChecks?: number,
+    stunCandidateKeepaliveIntervalMs?: number,
+    stableWritableConnectionPingIntervalMs?: number,
+    maxIPv6Networks?: number,
+    screencastMinBitrate?: number,
+    surfaceIceCandidatesOnIceTransportTypeChanged?: boolean,
+    disableIPv6OnWifi?: boolean,
+    enableDscp?: boolean,
+    enableCpuOveruseDetection?: boolean,
+    suspendBelowMinBitrate?: boolean,
+    offerExtmapAllowMixed?: boolean,
+    networkPreference?: 'ethernet' | 'wifi' | 'cellular' | 'vpn' | 'loopback',
+    turnPortPrunePolicy?: 'no_prune' | 'prune_based_on_priority' | 'keep_first_ready'
 };
 
 type RTCPeerConnectionEventMap = {
@@ -72,10 +170,67 @@ type RTCPeerConnectionEventMap = {
     datachannel: RTCDataChannelEvent<'datachannel'>
     track: RTCTrackEvent<'track'>
     error: Event<'error'>
+    networkchange: Event<'networkchange'>
+    connectiontimeline: RTCConnectionTimelineEvent<'connectiontimeline'>
+    mediaflowstalled: RTCMediaFlowEvent<'mediaflowstalled'>
+    mediaflowresumed: RTCMediaFlowEvent<'mediaflowresumed'>
 }
 
+/**
+ * Non-standard. When the setup milestones of a PeerConnection happened, in
+ * milliseconds since it was created (initTimestamp, a Unix timestamp).
+ */
+export type RTCConnectionTimeline = {
+    initTimestamp?: number,
+    milestones: {
+        init?: number,
+        createOffer?: number,
+        createAnswer?: number,
+        setLocalDescription?: number,
+        setRemoteDescription?: number,
+        firstCandidate?: number,
+        gatheringComplete?: number,
+        iceChecking?: number,
+        iceConnected?: number,
+        connected?: number,
+        firstTrack?: number
+    },
+    // Remote video track id -> first decoded frame.
+    firstVideoFrames: Record<string, number>
+};
+
 let nextPeerConnectionId = 0;
 
+/**
+ * Sanitizes the ICE servers of the given configuration, in place.
+ */
+function sanitizeConfiguration(configuration?: RTCConfiguration) {
+    if (configuration) {
+        const servers = configuration?.iceServers ?? [];
+
+        for (const server of servers) {
+            let urls = server.url || server.urls;
+
+            delete server.url;
+            delete server.urls;
+
+            if (!urls) {
+                continue;
+            }
+
+            if (!Array.isArray(urls)) {
+                urls = [ urls ];
+            }
+
+            // Native WebRTC does case sensitive parsing.
+            server.urls = urls.map(url => url.toLowerCase());
+        }
+
+        // Filter out bogus servers.
+        configuration.iceServers = servers.filter(s => s.urls);
+    }
+}
+
 export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEventMap> {
     localDescription: RTCSessionDescription | null = null;
     remoteDescription: RTCSessionDescription | null = null;
@@ -94,31 +249,7 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
 
         this._pcId = nextPeerConnectionId++;
 
-        // Sanitize ICE servers.
-        if (configuration) {
-            const servers = configuration?.iceServers ?? [];
-
-            for (const server of servers) {
-                let urls = server.url || server.urls;
-
-                delete server.url;
-                delete server.urls;
-
-                if (!urls) {
-                    continue;
-                }
-
-                if (!Array.isArray(urls)) {
-                    urls = [ urls ];
-                }
-
-                // Native WebRTC does case sensitive parsing.
-                server.urls = urls.map(url => url.toLowerCase());
-            }
-
-            // Filter out bogus servers.
-            configuration.iceServers = servers.filter(s => s.urls);
-        }
+        sanitizeConfiguration(configuration);
 
         if (!WebRTCModule.peerConnectionInit(configuration, this._pcId)) {
             throw new Error('Failed to initialize PeerConnection, check the native logs!');
@@ -133,6 +264,23 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
         log.debug(`${this._pcId} ctor`);
     }
 
+    /**
+     * Non-standard, Android only. Keeps a pool of PeerConnections created
+     * ahead of time with the given configuration, a PeerConnection later
+     * created with an equal configuration takes one of them and skips most of
+     * the setup. Set iceCandidatePoolSize in the configuration to have ICE
+     * candidates gathered ahead of time too. Idle ones are replaced after ttl
+     * milliseconds, 0 meaning never. A size of 0 empties the pool.
+     */
+    static configureWarmPool(configuration: RTCConfiguration | null, size: number, ttl = 0): void {
+        if (!WebRTCModule.peerConnectionPoolConfigure) {
+            return;
+        }
+
+        sanitizeConfiguration(configuration ?? undefined);
+        WebRTCModule.peerConnectionPoolConfigure(configuration, size, ttl);
+    }
+
     async createOffer(options?:RTCOfferOptions) {
         log.debug(`${this._pcId} createOffer`);
 
@@ -177,6 +325,20 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
         return sdpInfo;
     }
 
+    /**
+     * Non-standard, Android only. Sets the rules applied natively to the
+     * descriptions returned by createOffer() and createAnswer(), null clears
+     * them. Descriptions created implicitly by setLocalDescription() are not
+     * transformed.
+     */
+    setSdpTransform(rules: RTCSdpTransformRules | null): Promise<void> {
+        if (!WebRTCModule.peerConnectionSetSdpTransform) {
+            return Promise.reject(new Error('setSdpTransform is not supported on this platform'));
+        }
+
+        return WebRTCModule.peerConnectionSetSdpTransform(this._pcId, rules);
+    }
+
     setConfiguration(configuration): void {
         WebRTCModule.peerConnectionSetConfiguration(configuration, this._pcId);
     }
@@ -416,51 +578,52 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
     addTransceiver(source: 'audio' | 'video' | MediaStreamTrack, init): RTCRtpTransceiver {
         log.debug(`${this._pcId} addTransceiver`);
 
-        let src = {};
+        const result = WebRTCModule.peerConnectionAddTransceiver(this._pcId, this._transceiverSpec(source, init));
 
-        if (source === 'audio') {
-            src = { type: 'audio' };
-        } else if (source === 'video') {
-            src = { type: 'video' };
-        } else {
-            src = { trackId: source.id };
+        if (result === null) {
+            throw new Error('Transceiver could not be added');
         }
 
-        // Extract the stream ids
-        if (init && init.streams) {
-            init.streamIds = init.streams.map(stream => stream.id);
-        }
+        return this._addTransceiverResult(source, result);
+    }
 
-        const result = WebRTCModule.peerConnectionAddTransceiver(this._pcId, { ...src, init: { ...init } });
+    /**
+     * Non-standard. Adds several transceivers at once, which is considerably
+     * cheaper than calling {@link RTCPeerConnection#addTransceiver} for each of
+     * them on Android, where they are all created in a single native call.
+     * The whole batch is validated natively before any transceiver is added,
+     * so invalid sources or init dictionaries add none of them.
+     *
+     * @param transceivers - the source and init of each transceiver, as for addTransceiver
+     * @returns the new transceivers, in the same order
+     */
+    addTransceivers(
+        transceivers: Array<{ source: 'audio' | 'video' | MediaStreamTrack, init?: any }>
+    ): RTCRtpTransceiver[] {
+        log.debug(`${this._pcId} addTransceivers`);
 
-        if (result === null) {
-            throw new Error('Transceiver could not be added');
+        if (!WebRTCModule.peerConnectionAddTransceivers) {
+            return transceivers.map(({ source, init }) => this.addTransceiver(source, init));
         }
 
-        const t = result.transceiver;
-        let track: MediaStreamTrack | null = null;
+        const specs = transceivers.map(({ source, init }) => this._transceiverSpec(source, init));
+        const results = WebRTCModule.peerConnectionAddTransceivers(this._pcId, specs);
 
-        if (typeof source === 'string') {
-            if (t.sender.track) {
-                track = new MediaStreamTrack(t.sender.track);
-            }
-        } else {
-            // 'source' is a MediaStreamTrack
-            track = source;
+        if (results === null) {
+            throw new Error('Transceivers could not be added');
         }
 
-        const sender = new RTCRtpSender({ ...t.sender, track });
-        const remoteTrack = t.receiver.track ? new MediaStreamTrack(t.receiver.track) : null;
-        const receiver = new RTCRtpReceiver({ ...t.receiver, track: remoteTrack });
-        const transceiver = new RTCRtpTransceiver({
-            ...result.transceiver,
-            sender,
-            receiver
+        const added = results.map((result, i) => {
+            return result === null ? null : this._addTransceiverResult(transceivers[i].source, result);
         });
+        const failed = added.map((t, i) => (t === null ? i : -1)).filter(i => i !== -1);
 
-        this._insertTransceiverSorted(result.transceiverOrder, transceiver);
+        if (failed.length) {
+            // The others were added nonetheless, they show up in getTransceivers().
+            throw new Error(`Transceivers ${failed.join(', ')} could not be added, the others were`);
+        }
 
-        return transceiver;
+        return added as RTCRtpTransceiver[];
     }
 
     removeTrack(sender: RTCRtpSender) {
@@ -498,6 +661,19 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
         existingTransceiver._direction = existingTransceiver.direction === 'sendrecv' ? 'recvonly' : 'inactive';
     }
 
+    /**
+     * Non-standard, Android only. Returns when the setup milestones of this
+     * PeerConnection happened. Also available when the 'connectiontimeline'
+     * event fires, once the connection is first established.
+     */
+    getTimeline(): Promise<RTCConnectionTimeline> {
+        if (!WebRTCModule.peerConnectionGetTimeline) {
+            return Promise.reject(new Error('getTimeline is not supported on this platform'));
+        }
+
+        return WebRTCModule.peerConnectionGetTimeline(this._pcId);
+    }
+
     async getStats(selector?: MediaStreamTrack) {
         log.debug(`${this._pcId} getStats`);
 
@@ -563,6 +739,46 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
     }
 
     _registerEvents(): void {
+        addListener(this, 'peerConnectionTimeline', (ev: any) => {
+            if (ev.pcId !== this._pcId) {
+                return;
+            }
+
+            log.debug(`${this._pcId} connected after ${ev.timeline.milestones.connected}ms`);
+
+            this.dispatchEvent(new RTCConnectionTimelineEvent('connectiontimeline', { timeline: ev.timeline }));
+        });
+
+        addListener(this, 'peerConnectionNetworkChanged', (ev: any) => {
+            if (!ev.restartedPcIds.includes(this._pcId)) {
+                return;
+            }
+
+            log.debug(`${this._pcId} ICE restarted on network change to ${ev.networkType}`);
+
+            this.dispatchEvent(new Event('networkchange'));
+        });
+
+        addListener(this, 'mediaFlowStalled', (ev: any) => {
+            if (ev.pcId !== this._pcId) {
+                return;
+            }
+
+            log.debug(`${this._pcId} ${ev.direction} ${ev.kind} stream ${ev.ssrc} stalled`);
+
+            this.dispatchEvent(new RTCMediaFlowEvent('mediaflowstalled', ev));
+        });
+
+        addListener(this, 'mediaFlowResumed', (ev: any) => {
+            if (ev.pcId !== this._pcId) {
+                return;
+            }
+
+            log.debug(`${this._pcId} ${ev.direction} ${ev.kind} stream ${ev.ssrc} resumed after ${ev.duration}ms`);
+
+            this.dispatchEvent(new RTCMediaFlowEvent('mediaflowresumed', ev));
+        });
+
         addListener(this, 'peerConnectionOnRenegotiationNeeded', (ev: any) => {
             if (ev.pcId !== this._pcId) {
                 return;
@@ -792,8 +1008,15 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
 
             transceiver._mid = update.mid;
             transceiver._stopped = Boolean(update.isStopped);
-            transceiver._sender._rtpParameters = new RTCRtpSendParameters(update.senderRtpParameters);
-            transceiver._receiver._rtpParameters = new RTCRtpReceiveParameters(update.receiverRtpParameters);
+
+            // The native side may leave out the RTP parameters which didn't change.
+            if (update.senderRtpParameters) {
+                transceiver._sender._rtpParameters = new RTCRtpSendParameters(update.senderRtpParameters);
+            }
+
+            if (update.receiverRtpParameters) {
+                transceiver._receiver._rtpParameters = new RTCRtpReceiveParameters(update.receiverRtpParameters);
+            }
         }
 
         if (removeStopped) {
@@ -804,6 +1027,52 @@ export default class RTCPeerConnection extends EventTarget<RTCPeerConnectionEven
         }
     }
 
+    _transceiverSpec(source: 'audio' | 'video' | MediaStreamTrack, init) {
+        let src = {};
+
+        if (source === 'audio') {
+            src = { type: 'audio' };
+        } else if (source === 'video') {
+            src = { type: 'video' };
+        } else {
+            src = { trackId: source.id };
+        }
+
+        // Extract the stream ids
+        if (init && init.streams) {
+            init.streamIds = init.streams.map(stream => stream.id);
+        }
+
+        return { ...src, init: { ...init } };
+    }
+
+    _addTransceiverResult(source: 'audio' | 'video' | MediaStreamTrack, result): RTCRtpTransceiver {
+        const t = result.transceiver;
+        let track: MediaStreamTrack | null = null;
+
+        if (typeof source === 'string') {
+            if (t.sender.track) {
+                track = new MediaStreamTrack(t.sender.track);
+            }
+        } else {
+            // 'source' is a MediaStreamTrack
+            track = source;
+        }
+
+        const sender = new RTCRtpSender({ ...t.sender, track });
+        const remoteTrack = t.receiver.track ? new MediaStreamTrack(t.receiver.track) : null;
+        const receiver = new RTCRtpReceiver({ ...t.receiver, track: remoteTrack });
+        const transceiver = new RTCRtpTransceiver({
+            ...result.transceiver,
+            sender,
+            receiver
+        });
+
+        this._insertTransceiverSorted(result.transceiverOrder, transceiver);
+
+        return transceiver;
+    }
+
     /**
      * Inserts transceiver into the transceiver array in the order they are created (timestamp).
      * @param order an index that refers to when it it was created relatively.
@@ -830,3 +1099,7 @@ defineEventAttribute(proto, 'signalingstatechange');
 defineEventAttribute(proto, 'datachannel');
 defineEventAttribute(proto, 'track');
 defineEventAttribute(proto, 'error');
+defineEventAttribute(proto, 'networkchange');
+defineEventAttribute(proto, 'connectiontimeline');
+defineEventAttribute(proto, 'mediaflowstalled');
+defineEventAttribute(proto, 'mediaflowresumed');
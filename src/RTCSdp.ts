@@ -0,0 +1,98 @@
+import { NativeModules } from 'react-native';
+
+const { WebRTCModule } = NativeModules;
+
+type MediaKind = 'audio' | 'video' | 'application' | string;
+
+/**
+ * Declarative SDP munging rules, applied natively. Codecs are referred to by
+ * their rtpmap encoding name (e.g. 'VP8', 'opus'), case insensitively.
+ */
+export interface RTCSdpTransformRules {
+    /** Codecs to remove per media kind, along with their RTX / RED payloads. */
+    removeCodecs?: Record<MediaKind, string[]>;
+    /**
+     * Codecs to move to the front of the m= line per media kind, in order. Each
+     * one is followed by its RTX / RED payloads.
+     */
+    codecOrder?: Record<MediaKind, string[]>;
+    /** fmtp parameters to merge in, null values remove a parameter. */
+    fmtp?: Array<{
+        kind?: MediaKind,
+        codec: string,
+        parameters: Record<string, string | number | boolean | null>
+    }>;
+    /** Bandwidth limit per media kind in kbps, as b=AS and b=TIAS. 0 removes it. */
+    bandwidth?: Record<MediaKind, number>;
+    /** Attributes to remove by name, e.g. 'extmap-allow-mixed'. */
+    removeAttributes?: Array<{ kind?: MediaKind, mid?: string, name: string }>;
+    /** Full attribute lines to append, e.g. 'a=simulcast:send f;h;q'. */
+    addAttributes?: Array<{ kind?: MediaKind, mid?: string, lines: string[] }>;
+}
+
+export interface RTCSdpAttribute {
+    name: string;
+    value?: string;
+}
+
+export interface RTCSdpCodec {
+    payloadType: string;
+    name?: string;
+    clockRate?: string;
+    channels?: string;
+    parameters?: Record<string, string>;
+    rtcpFeedback?: string[];
+}
+
+export interface RTCSdpMediaSection {
+    kind: string;
+    port: string;
+    protocol: string;
+    payloads: string[];
+    mid?: string;
+    direction?: 'sendrecv' | 'sendonly' | 'recvonly' | 'inactive';
+    connection?: string;
+    bandwidth: Record<string, string>;
+    codecs: RTCSdpCodec[];
+    attributes: RTCSdpAttribute[];
+}
+
+export interface RTCSdpInfo {
+    session: {
+        version?: string,
+        origin?: string,
+        name?: string,
+        timing?: string,
+        bandwidth: Record<string, string>,
+        attributes: RTCSdpAttribute[]
+    };
+    media: RTCSdpMediaSection[];
+}
+
+/**
+ * Non-standard, Android only. SDP helpers running on the native side, off the
+ * JS thread.
+ */
+export default class RTCSdp {
+    /**
+     * Applies the given rules to an SDP.
+     */
+    static transform(sdp: string, rules: RTCSdpTransformRules): Promise<string> {
+        if (!WebRTCModule.sdpTransform) {
+            return Promise.reject(new Error('RTCSdp.transform is not supported on this platform'));
+        }
+
+        return WebRTCModule.sdpTransform(sdp, rules);
+    }
+
+    /**
+     * Parses an SDP into its session and media sections.
+     */
+    static parse(sdp: string): Promise<RTCSdpInfo> {
+        if (!WebRTCModule.sdpParse) {
+            return Promise.reject(new Error('RTCSdp.parse is not supported on this platform'));
+        }
+
+        return WebRTCModule.sdpParse(sdp);
+    }
+}
@@ -61,6 +61,17 @@ export interface RTCVideoViewProps extends ViewProps {
    */
   zOrder?: number;
 
+  /**
+   * The maximum number of frames per second rendered by this RTCView, frames
+   * delivered by the track above it are dropped before being drawn. Useful
+   * for small thumbnails which don't need the full frame rate. 0 (the
+   * default) means no limit.
+   *
+   * Android only.
+   *
+   * maxFps: number
+   */
+  maxFps?: number;
 
   /**
    * Picture in picture options for this view. Disabled if not supplied.
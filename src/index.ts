@@ -16,13 +16,16 @@ import MediaStreamTrack, { type MediaTrackSettings } from './MediaStreamTrack';
 import MediaStreamTrackEvent from './MediaStreamTrackEvent';
 import permissions from './Permissions';
 import RTCAudioSession from './RTCAudioSession';
+import RTCConnectionTimelineEvent from './RTCConnectionTimelineEvent';
 import RTCErrorEvent from './RTCErrorEvent';
 import RTCIceCandidate from './RTCIceCandidate';
+import RTCMediaFlowEvent from './RTCMediaFlowEvent';
 import RTCPIPView, { startIOSPIP, stopIOSPIP } from './RTCPIPView';
 import RTCPeerConnection from './RTCPeerConnection';
 import RTCRtpReceiver from './RTCRtpReceiver';
 import RTCRtpSender from './RTCRtpSender';
 import RTCRtpTransceiver from './RTCRtpTransceiver';
+import RTCSdp, { type RTCSdpInfo, type RTCSdpTransformRules } from './RTCSdp';
 import RTCSessionDescription from './RTCSessionDescription';
 import RTCView, { type RTCVideoViewProps, type RTCIOSPIPOptions } from './RTCView';
 import ScreenCapturePickerView from './ScreenCapturePickerView';
@@ -43,7 +46,12 @@ export {
     RTCRtpReceiver,
     RTCRtpSender,
     RTCErrorEvent,
+    RTCConnectionTimelineEvent,
+    RTCMediaFlowEvent,
     RTCAudioSession,
+    RTCSdp,
+    type RTCSdpInfo,
+    type RTCSdpTransformRules,
     MediaStream,
     MediaStreamTrack,
     type MediaTrackSettings,
@@ -0,0 +1,112 @@
+package com.oney.WebRTCModule;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Measures the CPU cost vs. the bytes saved by {@link DataChannelCompressor}
+ * for a few representative text payloads and compression levels.
+ *
+ * It lives in the library package to reach the package-private compressor
+ * and is compiled with the unit test sources of the Android library (e.g.
+ * {@code ./gradlew compileDebugUnitTestJavaWithJavac}), it is not part of the
+ * library itself. Run it from the repository root with a JDK:
+ *
+ * <pre>
+ * javac -d /tmp/dcbench \
+ *     android/src/main/java/com/oney/WebRTCModule/DataChannelCompressor.java \
+ *     tools/benchmarks/DataChannelCompressionBenchmark.java
+ * java -cp /tmp/dcbench com.oney.WebRTCModule.DataChannelCompressionBenchmark
+ * </pre>
+ */
+public class DataChannelCompressionBenchmark {
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42);
+        String[][] payloads = {
+            { "chat (300 B)", chat(random, 300) },
+            { "json (2 KiB)", json(random, 2 * 1024) },
+            { "json (64 KiB)", json(random, 64 * 1024) },
+            { "random (4 KiB)", noise(random, 4 * 1024) },
+        };
+        int[] levels = { Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION };
+
+        System.out.printf("%-16s %6s %10s %10s %8s %12s %12s%n",
+                "payload", "level", "in (B)", "out (B)", "saved", "deflate (us)", "inflate (us)");
+
+        for (String[] payload : payloads) {
+            byte[] data = payload[1].getBytes(StandardCharsets.UTF_8);
+
+            for (int level : levels) {
+                DataChannelCompressor compressor = new DataChannelCompressor(level);
+                byte[] compressed = null;
+
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    compressed = compressor.compress(data);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    compressed = compressor.compress(data);
+                }
+                double deflateUs = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+                double inflateUs = 0;
+                if (compressed != null) {
+                    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                        compressor.decompress(compressed, data.length);
+                    }
+                    start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        compressor.decompress(compressed, data.length);
+                    }
+                    inflateUs = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+                }
+
+                int out = compressed != null ? compressed.length : data.length;
+                System.out.printf("%-16s %6d %10d %10d %7.1f%% %12.1f %12s%n",
+                        payload[0],
+                        level,
+                        data.length,
+                        out,
+                        100.0 * (data.length - out) / data.length,
+                        deflateUs,
+                        compressed != null ? String.format("%.1f", inflateUs) : "-");
+
+                compressor.release();
+            }
+        }
+    }
+
+    private static String chat(Random random, int size) {
+        String[] words = { "hello", "meeting", "audio", "video", "can", "you", "hear", "me", "now", "the", "screen" };
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) {
+            sb.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return sb.substring(0, size);
+    }
+
+    private static String json(Random random, int size) {
+        StringBuilder sb = new StringBuilder("[");
+        while (sb.length() < size) {
+            sb.append("{\"id\":").append(random.nextInt(100000))
+                    .append(",\"type\":\"position\",\"x\":").append(random.nextFloat())
+                    .append(",\"y\":").append(random.nextFloat())
+                    .append(",\"participant\":\"user-").append(random.nextInt(16)).append("\"},");
+        }
+        sb.setLength(size - 1);
+        return sb.append(']').toString();
+    }
+
+    private static String noise(Random random, int size) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) {
+            sb.append((char) (33 + random.nextInt(94)));
+        }
+        return sb.toString();
+    }
+}